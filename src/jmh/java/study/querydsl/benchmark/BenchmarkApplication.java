@@ -0,0 +1,38 @@
+package study.querydsl.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+
+/**
+ * 벤치마크용 애플리케이션 컨텍스트. 메모리 H2 에 MemberDataGenerator 로 데이터를 채운다.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(int teams, long members, String... properties) {
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("local")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.format_sql=false",
+                        "spring.jpa.properties.hibernate.use_sql_comments=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "logging.level.org.hibernate.SQL=warn",
+                        "logging.level.org.hibernate.type.descriptor.sql=warn",
+                        "decorator.datasource.p6spy.enable-logging=false",
+                        "member.search.cache.enabled=false",
+                        "init.teams=" + teams,
+                        "init.members=" + members,
+                        "init.skew.team=1",
+                        "init.skew.age=0.5",
+                        "init.skew.username=1")
+                .properties(properties)
+                .run();
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.SearchMode;
+
+/**
+ * 같은 조건을 JPA / querydsl-sql / MemberColumnStore 로 조회해 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberColumnStoreBenchmark {
+
+    @Param({"10000", "100000"})
+    public long members;
+
+    @Param({"20"})
+    public int teams;
+
+    @Param({"JPA", "SQL", "MEMORY"})
+    public SearchMode mode;
+
+    @Param({"team", "team+age", "username", "age"})
+    public String shape;
+
+    private ConfigurableApplicationContext context;
+    private MemberJpaRepository memberJpaRepository;
+    private MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(teams, members, "member.column-store.enabled=true");
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+
+        condition = new MemberSearchCondition();
+        switch (shape) {
+            case "team":
+                condition.setTeamName("teamB");
+                break;
+            case "team+age":
+                condition.setTeamName("teamA");
+                condition.setAgeGoe(20);
+                condition.setAgeLoe(40);
+                break;
+            case "username":
+                condition.setUsername("member1");
+                break;
+            default:
+                condition.setAgeGoe(90);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> search() {
+        return memberJpaRepository.search(condition, mode);
+    }
+}
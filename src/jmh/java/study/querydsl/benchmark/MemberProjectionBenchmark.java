@@ -0,0 +1,127 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.DtoProjections;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.UserDto;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * DTO 프로젝션 방식별 비교. 모든 member 를 한 번에 조회한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberProjectionBenchmark {
+
+    @Param({"10000"})
+    public long members;
+
+    private ConfigurableApplicationContext context;
+    private JPAQueryFactory queryFactory;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(20, members);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Tuple> tuple() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(member.username, member.age)
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> bean() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> fields() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(Projections.fields(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> constructor() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(Projections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> queryProjection() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<UserDto> userDtoFields() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(Projections.fields(UserDto.class, member.username.as("name"), member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> dtoProjections() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(DtoProjections.memberDto(member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> dtoProjectionsBean() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(DtoProjections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<UserDto> userDtoProjections() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(DtoProjections.userDto(member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+}
@@ -0,0 +1,94 @@
+package study.querydsl.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+
+/**
+ * JPQL vs Querydsl, BooleanBuilder vs where 파라미터 비교.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberRepositoryBenchmark {
+
+    @Param({"10000"})
+    public long members;
+
+    @Param({"20"})
+    public int teams;
+
+    private ConfigurableApplicationContext context;
+    private MemberJpaRepository memberJpaRepository;
+    private TransactionTemplate transactionTemplate;
+    private MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(teams, members);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> findAll() {
+        return transactionTemplate.execute(status -> memberJpaRepository.findAll());
+    }
+
+    @Benchmark
+    public List<Member> findAll_Querydsl() {
+        return transactionTemplate.execute(status -> memberJpaRepository.findAll_Querydsl());
+    }
+
+    @Benchmark
+    public List<Member> findByUsername() {
+        return transactionTemplate.execute(status -> memberJpaRepository.findByUsername("member1"));
+    }
+
+    @Benchmark
+    public List<Member> findByUsername_Querydsl() {
+        return transactionTemplate.execute(status -> memberJpaRepository.findByUsername_Querydsl("member1"));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByBuilder() {
+        return transactionTemplate.execute(status -> memberJpaRepository.searchByBuilder(condition));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> search() {
+        return transactionTemplate.execute(status -> memberJpaRepository.search(condition));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchUncached() {
+        return transactionTemplate.execute(status -> memberJpaRepository.searchUncached(condition));
+    }
+}
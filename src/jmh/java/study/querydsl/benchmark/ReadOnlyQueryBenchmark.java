@@ -0,0 +1,78 @@
+package study.querydsl.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+
+/**
+ * 읽기 전용 모드 on/off 비교. readOnly=false 는 read-write 트랜잭션에서 조회 후 커밋 시 flush 까지 포함한다.
+ * -prof gc 의 gc.alloc.rate.norm 이 요청당 할당량(스냅샷 포함)이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadOnlyQueryBenchmark {
+
+    @Param({"10000"})
+    public long members;
+
+    @Param({"true", "false"})
+    public boolean readOnly;
+
+    private ConfigurableApplicationContext context;
+    private MemberJpaRepository memberJpaRepository;
+    private EntityManager em;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(20, members,
+                "member.repository.read-only-queries=" + readOnly);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        em = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(readOnly);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> findAll() {
+        return transactionTemplate.execute(status -> memberJpaRepository.findAll());
+    }
+
+    @Benchmark
+    public List<Member> findAll_Querydsl() {
+        return transactionTemplate.execute(status -> memberJpaRepository.findAll_Querydsl());
+    }
+
+    /**
+     * 같은 트랜잭션에서 flush 를 한 번 더 해서 dirty checking 비용만 따로 본다.
+     */
+    @Benchmark
+    public List<Member> findAllThenFlush() {
+        return transactionTemplate.execute(status -> {
+            List<Member> result = memberJpaRepository.findAll();
+            em.flush();
+            return result;
+        });
+    }
+}
@@ -1,12 +1,19 @@
 package study.querydsl;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.spring.SpringConnectionProvider;
+import com.querydsl.sql.spring.SpringExceptionTranslator;
 import javax.persistence.EntityManager;
+import javax.sql.DataSource;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class QuerydslApplication {
 
     public static void main(String[] args) {
@@ -18,4 +25,11 @@ public class QuerydslApplication {
     JPAQueryFactory jpaQueryFactory(EntityManager em) {
         return new JPAQueryFactory(em);
     }
+
+    @Bean
+    SQLQueryFactory sqlQueryFactory(DataSource dataSource) {
+        com.querydsl.sql.Configuration configuration = new com.querydsl.sql.Configuration(new H2Templates());
+        configuration.setExceptionTranslator(new SpringExceptionTranslator());
+        return new SQLQueryFactory(configuration, new SpringConnectionProvider(dataSource));
+    }
 }
@@ -1,44 +1,21 @@
 package study.querydsl.controller;
 
-import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import study.querydsl.entity.Member;
-import study.querydsl.entity.Team;
+import study.querydsl.support.MemberDataGenerator;
 
 @Profile("local")
 @Component
 @RequiredArgsConstructor
 public class InitMember {
 
-    private final InitMemberService initMemberService;
+    private final MemberDataGenerator memberDataGenerator;
 
-    @PostConstruct
+    @EventListener(ApplicationReadyEvent.class)
     public void init() {
-       initMemberService.init();
-    }
-
-    @Component
-    static class InitMemberService {
-        @PersistenceContext
-        private EntityManager em;
-
-        @Transactional
-        public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member"+i, i, selectedTeam));
-            }
-        }
-
+        memberDataGenerator.generate();
     }
 }
@@ -1,21 +1,157 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import javax.servlet.http.HttpServletResponse;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.MemberCursorPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberAgeHistogram;
 import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.SearchMode;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
+    private static final int EXPORT_FLUSH_ROWS = 1000;
+    static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final MemberJpaRepository memberJpaRepository;
+    private final MemberAgeHistogram memberAgeHistogram;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.search(condition);
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition,
+                                              @RequestParam(required = false) SearchMode mode) {
+        if (mode != null) {
+            return memberJpaRepository.search(condition, mode);
+        }
+        return memberJpaRepository.searchCached(condition);
+    }
+
+    @GetMapping("/v1/members/page")
+    public Page<MemberTeamDto> searchMemberPage(MemberSearchCondition condition, Pageable pageable,
+                                                @RequestParam(defaultValue = "false") boolean concurrent) {
+        if (concurrent) {
+            return memberJpaRepository.searchPageConcurrent(condition, pageable);
+        }
+        return memberJpaRepository.searchPage(condition, pageable);
+    }
+
+    /**
+     * teamId 가 없으면 전체. DB 를 읽지 않고 MemberAgeHistogram 으로 센다.
+     */
+    @GetMapping("/v1/members/count-by-age")
+    public long countByAge(@RequestParam(required = false) Long teamId,
+                           @RequestParam(required = false) Integer ageGoe,
+                           @RequestParam(required = false) Integer ageLoe) {
+        return memberAgeHistogram.countByAge(teamId, ageGoe, ageLoe);
+    }
+
+    @GetMapping("/v1/members/age-distribution")
+    public long[] ageDistribution(@RequestParam(required = false) Long teamId,
+                                  @RequestParam(defaultValue = "10") int bucketWidth) {
+        if (bucketWidth < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bucketWidth must be positive");
+        }
+        return memberAgeHistogram.distribution(teamId, bucketWidth);
+    }
+
+    @GetMapping("/v2/members")
+    public MemberCursorPage searchMemberV2(MemberSearchCondition condition,
+                                           @RequestParam(required = false) Long lastMemberId,
+                                           @RequestParam(required = false) Integer lastAge,
+                                           @RequestParam(defaultValue = "20") int size,
+                                           @RequestParam(defaultValue = "id") String sort) {
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be positive");
+        }
+        size = Math.min(size, MAX_CURSOR_PAGE_SIZE);
+        if ("age".equals(sort)) {
+            return memberJpaRepository.searchByAgeCursor(condition, lastAge, lastMemberId, size);
+        }
+        return memberJpaRepository.searchByCursor(condition, lastMemberId, size);
+    }
+
+    /**
+     * format=ndjson(기본) 또는 csv. 조회 결과를 메모리에 모으지 않고 바로 응답에 쓴다.
+     */
+    @GetMapping("/v1/members/export")
+    public void exportMembers(MemberSearchCondition condition,
+                              @RequestParam(defaultValue = "ndjson") String format,
+                              HttpServletResponse response) throws IOException {
+        boolean csv = "csv".equals(format);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+
+        PrintWriter writer = response.getWriter();
+        if (csv) {
+            writer.print("memberId,username,age,teamId,teamName\n");
+        }
+        RowCounter counter = new RowCounter();
+        memberJpaRepository.searchStream(condition, dto -> {
+            if (csv) {
+                writeCsv(writer, dto);
+            } else {
+                writeJson(writer, dto);
+            }
+            if (counter.increment() % EXPORT_FLUSH_ROWS == 0) {
+                writer.flush();
+            }
+        });
+        writer.flush();
+    }
+
+    private void writeJson(PrintWriter writer, MemberTeamDto dto) {
+        try {
+            writer.print(objectMapper.writeValueAsString(dto));
+            writer.print('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeCsv(PrintWriter writer, MemberTeamDto dto) {
+        writer.print(dto.getMemberId());
+        writer.print(',');
+        writer.print(csvValue(dto.getUsername()));
+        writer.print(',');
+        writer.print(dto.getAge());
+        writer.print(',');
+        writer.print(dto.getTeamId() != null ? dto.getTeamId().toString() : "");
+        writer.print(',');
+        writer.print(csvValue(dto.getTeamName()));
+        writer.print('\n');
+    }
+
+    private static String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static class RowCounter {
+        private long count;
+
+        long increment() {
+            return ++count;
+        }
     }
 }
@@ -0,0 +1,29 @@
+package study.querydsl.controller;
+
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.dto.TeamStatisticsDto;
+import study.querydsl.repository.TeamJpaRepository;
+import study.querydsl.repository.TeamStatisticsRepository;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+    private final TeamJpaRepository teamJpaRepository;
+    private final TeamStatisticsRepository teamStatisticsRepository;
+
+    @GetMapping("/v1/teams")
+    public Page<TeamMembersDto> teamsWithMembers(Pageable pageable) {
+        return teamJpaRepository.findTeamsWithMembers(pageable);
+    }
+
+    @GetMapping("/v1/teams/statistics")
+    public List<TeamStatisticsDto> teamStatistics() {
+        return teamStatisticsRepository.findAll();
+    }
+}
@@ -0,0 +1,141 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Projections.bean / fields / constructor 를 대신하는 프로젝션.
+ *
+ * 생성자와 setter 는 LambdaMetafactory 로 한 번만 만들어 캐시하므로 행마다 리플렉션을 하지 않는다.
+ * select(...) 에 그대로 넘길 수 있다.
+ */
+public final class DtoProjections {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final Map<Class<?>, BeanAccessor> ACCESSORS = new ConcurrentHashMap<>();
+
+    private DtoProjections() {
+    }
+
+    public static FactoryExpression<MemberDto> memberDto(Expression<String> username, Expression<Integer> age) {
+        return new LambdaFactoryExpression<>(MemberDto.class,
+                args -> new MemberDto((String) args[0], toInt(args[1])),
+                username, age);
+    }
+
+    public static FactoryExpression<UserDto> userDto(Expression<String> name, Expression<Integer> age) {
+        return new LambdaFactoryExpression<>(UserDto.class,
+                args -> new UserDto((String) args[0], toInt(args[1])),
+                name, age);
+    }
+
+    public static FactoryExpression<MemberTeamDto> memberTeamDto(Expression<Long> memberId, Expression<String> username,
+                                                                 Expression<Integer> age, Expression<Long> teamId,
+                                                                 Expression<String> teamName) {
+        return new LambdaFactoryExpression<>(MemberTeamDto.class,
+                args -> new MemberTeamDto((Long) args[0], (String) args[1], toInt(args[2]),
+                        (Long) args[3], (String) args[4]),
+                memberId, username, age, teamId, teamName);
+    }
+
+    /**
+     * Projections.bean 과 같은 규칙(경로 이름 또는 alias 로 setter 를 찾는다)을 쓴다.
+     * null 값은 setter 를 호출하지 않는다.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> FactoryExpression<T> bean(Class<T> type, Expression<?>... args) {
+        BeanAccessor accessor = ACCESSORS.computeIfAbsent(type, BeanAccessor::new);
+        BiConsumer<Object, Object>[] setters = new BiConsumer[args.length];
+        for (int i = 0; i < args.length; i++) {
+            setters[i] = accessor.setter(propertyName(args[i]));
+        }
+        return new LambdaFactoryExpression<>(type, values -> {
+            T bean = (T) accessor.constructor.get();
+            for (int i = 0; i < setters.length; i++) {
+                if (values[i] != null) {
+                    setters[i].accept(bean, values[i]);
+                }
+            }
+            return bean;
+        }, args);
+    }
+
+    private static int toInt(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
+
+    private static String propertyName(Expression<?> expr) {
+        if (expr instanceof Operation && ((Operation<?>) expr).getOperator() == Ops.ALIAS) {
+            return propertyName(((Operation<?>) expr).getArg(1));
+        }
+        if (expr instanceof Path) {
+            return ((Path<?>) expr).getMetadata().getName();
+        }
+        throw new IllegalArgumentException("Unsupported expression " + expr + ", use as(alias)");
+    }
+
+    private static class BeanAccessor {
+        private final Class<?> type;
+        private final Supplier<Object> constructor;
+        private final Map<String, BiConsumer<Object, Object>> setters = new ConcurrentHashMap<>();
+
+        BeanAccessor(Class<?> type) {
+            this.type = type;
+            this.constructor = constructor(type);
+        }
+
+        BiConsumer<Object, Object> setter(String property) {
+            return setters.computeIfAbsent(property, this::createSetter);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Supplier<Object> constructor(Class<?> type) {
+            try {
+                MethodHandle handle = LOOKUP.findConstructor(type, MethodType.methodType(void.class));
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get",
+                        MethodType.methodType(Supplier.class),
+                        MethodType.methodType(Object.class),
+                        handle,
+                        MethodType.methodType(type));
+                return (Supplier<Object>) site.getTarget().invoke();
+            } catch (Throwable e) {
+                throw new IllegalArgumentException("No accessible default constructor on " + type.getName(), e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private BiConsumer<Object, Object> createSetter(String property) {
+            String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+            for (Method method : type.getMethods()) {
+                if (method.getName().equals(name) && method.getParameterCount() == 1) {
+                    Class<?> parameterType = method.getParameterTypes()[0];
+                    try {
+                        MethodHandle handle = LOOKUP.unreflect(method);
+                        CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept",
+                                MethodType.methodType(BiConsumer.class),
+                                MethodType.methodType(void.class, Object.class, Object.class),
+                                handle,
+                                MethodType.methodType(void.class, type, MethodType.methodType(parameterType).wrap().returnType()));
+                        return (BiConsumer<Object, Object>) site.getTarget().invoke();
+                    } catch (Throwable e) {
+                        throw new IllegalArgumentException("Cannot bind setter " + type.getName() + "." + name, e);
+                    }
+                }
+            }
+            throw new IllegalArgumentException("No setter for property " + property + " on " + type.getName());
+        }
+    }
+}
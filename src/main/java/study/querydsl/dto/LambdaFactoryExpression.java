@@ -0,0 +1,37 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 행 값 배열을 람다로 바로 DTO 로 만드는 FactoryExpression. 행마다 리플렉션을 쓰지 않는다.
+ */
+class LambdaFactoryExpression<T> extends FactoryExpressionBase<T> {
+
+    private final List<Expression<?>> args;
+    private final Function<Object[], T> factory;
+
+    LambdaFactoryExpression(Class<? extends T> type, Function<Object[], T> factory, Expression<?>... args) {
+        super(type);
+        this.args = List.of(args);
+        this.factory = factory;
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    public T newInstance(Object... args) {
+        return factory.apply(args);
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+}
@@ -0,0 +1,36 @@
+package study.querydsl.dto;
+
+import java.util.List;
+import lombok.Getter;
+
+@Getter
+public class MemberCursorPage {
+
+    private final List<MemberTeamDto> content;
+    private final boolean hasNext;
+    private final Long nextMemberId;
+    private final Integer nextAge;
+
+    private MemberCursorPage(List<MemberTeamDto> content, boolean hasNext) {
+        this.content = content;
+        this.hasNext = hasNext;
+        MemberTeamDto last = content.isEmpty() ? null : content.get(content.size() - 1);
+        this.nextMemberId = hasNext ? last.getMemberId() : null;
+        this.nextAge = hasNext ? last.getAge() : null;
+    }
+
+    /**
+     * rows 는 size + 1 건까지 조회한 결과. 한 건이 더 있으면 다음 페이지가 있다.
+     */
+    public static MemberCursorPage of(List<MemberTeamDto> rows, int size) {
+        checkSize(size);
+        boolean hasNext = rows.size() > size;
+        return new MemberCursorPage(hasNext ? rows.subList(0, size) : rows, hasNext);
+    }
+
+    public static void checkSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.dto;
+
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class TeamMembersDto {
+    private Long teamId;
+    private String teamName;
+    private List<MemberDto> members;
+    private boolean moreMembers; // members 는 앞부분만 담았고 더 있다
+
+    public TeamMembersDto(Long teamId, String teamName, List<MemberDto> members, boolean moreMembers) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.members = members;
+        this.moreMembers = moreMembers;
+    }
+}
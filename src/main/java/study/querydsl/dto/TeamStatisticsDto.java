@@ -0,0 +1,24 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class TeamStatisticsDto {
+    private Long teamId;
+    private String teamName;
+    private long count;
+    private long sum;
+    private double avg;
+    private int max;
+    private int min;
+
+    public TeamStatisticsDto(Long teamId, String teamName, long count, long sum, int max, int min) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.count = count;
+        this.sum = sum;
+        this.avg = count > 0 ? (double) sum / count : 0;
+        this.max = max;
+        this.min = min;
+    }
+}
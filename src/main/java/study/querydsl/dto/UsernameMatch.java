@@ -0,0 +1,38 @@
+package study.querydsl.dto;
+
+import study.querydsl.entity.UsernameKeys;
+
+/**
+ * MemberSearchCondition.username 비교 방식. 지정하지 않으면 EXACT.
+ * EXACT 외에는 대소문자를 구분하지 않는다.
+ */
+public enum UsernameMatch {
+    /** 완전히 같은 값. username 인덱스 */
+    EXACT,
+    /** 대소문자 무시 같은 값. username_lower 인덱스 */
+    IGNORE_CASE,
+    /** 대소문자 무시 접두어. username_lower 인덱스 범위 검색 */
+    PREFIX,
+    /** 대소문자 무시 부분 문자열. trigram 인덱스로 후보를 줄인 뒤 like 로 확인 */
+    CONTAINS;
+
+    public static UsernameMatch orDefault(UsernameMatch match) {
+        return match != null ? match : EXACT;
+    }
+
+    public boolean matches(String pattern, String username) {
+        if (pattern == null || username == null) {
+            return false;
+        }
+        switch (this) {
+            case IGNORE_CASE:
+                return UsernameKeys.lower(username).equals(UsernameKeys.lower(pattern));
+            case PREFIX:
+                return UsernameKeys.lower(username).startsWith(UsernameKeys.lower(pattern));
+            case CONTAINS:
+                return UsernameKeys.lower(username).contains(UsernameKeys.lower(pattern));
+            default:
+                return username.equals(pattern);
+        }
+    }
+}
@@ -2,7 +2,9 @@ package study.querydsl.entity;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -11,6 +13,7 @@ import lombok.Setter;
 public class Hello {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hello_seq_generator")
+    @SequenceGenerator(name = "hello_seq_generator", sequenceName = "hello_seq", allocationSize = 50)
     private Long id;
 }
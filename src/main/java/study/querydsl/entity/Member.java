@@ -1,24 +1,55 @@
 package study.querydsl.entity;
 
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
 import javax.persistence.*;
 import lombok.*;
 
 @Entity
+@EntityListeners(MemberEntityListener.class)
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_username_lower", columnList = "username_lower"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"),
+        @Index(name = "idx_member_age_id", columnList = "age, member_id")})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
     private String username;
     private int age;
 
+    //username 검색용 파생 값. setUsername() 에서 함께 바뀐다
+    @Column(name = "username_lower")
+    @Setter(AccessLevel.NONE)
+    private String usernameLower;
+
+    //member 마다 (username 길이 - 2) 개의 trigram 행이 함께 insert 된다(saveAll, MemberDataGenerator 포함).
+    //로딩된 member 의 username 을 바꾸면 이 컬렉션을 읽어 온 뒤 바뀐 trigram 만 지우고 추가한다
+    @ElementCollection
+    @CollectionTable(name = "member_username_trigram",
+            joinColumns = @JoinColumn(name = "member_id"),
+            indexes = @Index(name = "idx_member_username_trigram", columnList = "trigram, member_id"))
+    @Column(name = "trigram", length = UsernameKeys.GRAM_LENGTH)
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private Set<String> usernameTrigrams = new HashSet<>();
+
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
 
+    //마지막으로 로딩/저장된 상태. MemberEntityListener 가 수정 전 값을 알기 위해 쓴다
+    @Transient
+    @Getter(AccessLevel.PACKAGE) @Setter(AccessLevel.PACKAGE)
+    private MemberSnapshot loadedSnapshot;
+
     public Member(String username) {
         this(username, 0);
     }
@@ -28,13 +59,25 @@ public class Member {
     }
 
     public Member(String username, int age, Team team) {
-        this.username = username;
+        setUsername(username);
         this.age = age;
         if (team != null) {
             changeTeam(team);
         }
     }
 
+    public void setUsername(String username) {
+        //같은 값이면 trigram 컬렉션을 읽어 오지 않는다
+        if (Objects.equals(this.username, username)) {
+            return;
+        }
+        this.username = username;
+        this.usernameLower = UsernameKeys.lower(username);
+        Set<String> trigrams = UsernameKeys.trigrams(username);
+        usernameTrigrams.retainAll(trigrams);
+        usernameTrigrams.addAll(trigrams);
+    }
+
     public void changeTeam(Team team) {
         this.team = team;
         team.getMembers().add(this);
@@ -0,0 +1,28 @@
+package study.querydsl.entity;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 커밋된 Member 변경 한 건. 추가면 before 가, 삭제면 after 가 null 이다.
+ */
+@Getter
+@ToString
+public class MemberChange {
+
+    private final MemberSnapshot before;
+    private final MemberSnapshot after;
+
+    public MemberChange(MemberSnapshot before, MemberSnapshot after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    public boolean isInsert() {
+        return before == null;
+    }
+
+    public boolean isDelete() {
+        return after == null;
+    }
+}
@@ -0,0 +1,21 @@
+package study.querydsl.entity;
+
+/**
+ * 커밋된 Member 변경을 받아 메모리에 유지하는 집계/인덱스를 갱신한다.
+ * MemberEntityListener 가 커밋 후 호출한다.
+ */
+public interface MemberChangeHandler {
+
+    void onMemberChange(MemberChange change);
+
+    /**
+     * 벌크 update/delete 처럼 엔티티 리스너를 거치지 않고 바뀐 뒤에 호출된다. DB 에서 다시 읽어야 한다.
+     */
+    void onBulkChange();
+
+    /**
+     * team 이름 등 Team 이 커밋된 뒤 호출된다. member 를 team id 로만 다루면 무시해도 된다.
+     */
+    default void onTeamChange(Long teamId) {
+    }
+}
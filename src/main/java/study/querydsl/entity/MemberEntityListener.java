@@ -0,0 +1,140 @@
+package study.querydsl.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Member 의 추가/수정/삭제를 MemberChange 로 만들어 커밋 후 MemberChangeHandler 들에 넘긴다.
+ * 로딩/저장 시점 상태를 엔티티에 남겨 두고 수정 때 이전 상태로 쓴다.
+ * 읽기 전용 트랜잭션에서 읽은 엔티티는 세션이 읽기 전용으로 다루어 flush 되지 않으므로 상태를 남기지 않는다.
+ * 스프링 부트가 Hibernate 에 SpringBeanContainer 를 설정하므로 생성자 주입을 받을 수 있다.
+ *
+ * 한 트랜잭션의 변경이 max-pending 건을 넘으면(saveAll, 데이터 생성 같은 대량 저장) 모아 둔 변경을 버리고
+ * 커밋 후 onBulkChange 를 한 번만 호출한다. flush/clear 로 메모리를 제한하는 대량 저장에서
+ * 변경 목록이 행 수만큼 쌓이지 않게 하기 위해서다.
+ */
+@Slf4j
+public class MemberEntityListener {
+
+    private final ObjectProvider<MemberChangeHandler> handlers;
+    private final int maxPending;
+
+    public MemberEntityListener(ObjectProvider<MemberChangeHandler> handlers,
+                                @Value("${member.change.max-pending:1000}") int maxPending) {
+        this.handlers = handlers;
+        this.maxPending = maxPending;
+    }
+
+    @PostLoad
+    public void postLoad(Member member) {
+        // 읽기 전용 트랜잭션에서는 스프링이 세션 기본값을 읽기 전용으로 두므로(HibernateJpaDialect) 수정될 일이 없다
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return;
+        }
+        member.setLoadedSnapshot(MemberSnapshot.of(member));
+    }
+
+    @PostPersist
+    public void postPersist(Member member) {
+        MemberSnapshot after = MemberSnapshot.of(member);
+        member.setLoadedSnapshot(after);
+        publish(new MemberChange(null, after));
+    }
+
+    @PostUpdate
+    public void postUpdate(Member member) {
+        MemberSnapshot before = member.getLoadedSnapshot();
+        MemberSnapshot after = MemberSnapshot.of(member);
+        member.setLoadedSnapshot(after);
+        if (!after.equals(before)) {
+            publish(new MemberChange(before, after));
+        }
+    }
+
+    @PostRemove
+    public void postRemove(Member member) {
+        MemberSnapshot before = member.getLoadedSnapshot();
+        publish(new MemberChange(before != null ? before : MemberSnapshot.of(member), null));
+    }
+
+    private void publish(MemberChange change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatch(Collections.singletonList(change));
+            return;
+        }
+        pendingChanges().add(change);
+    }
+
+    /**
+     * 트랜잭션마다 TransactionSynchronization 하나에 변경을 모은다.
+     * REQUIRES_NEW 로 바깥 트랜잭션이 보류되면 그 동기화도 함께 보류되므로 섞이지 않는다.
+     */
+    private PendingChanges pendingChanges() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges) {
+                return (PendingChanges) synchronization;
+            }
+        }
+        PendingChanges pending = new PendingChanges();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private void dispatch(List<MemberChange> changes) {
+        handlers.orderedStream().forEach(handler -> {
+            for (MemberChange change : changes) {
+                try {
+                    handler.onMemberChange(change);
+                } catch (RuntimeException e) {
+                    log.warn("member change handler {} failed for {}", handler.getClass().getSimpleName(), change, e);
+                }
+            }
+        });
+    }
+
+    private void dispatchBulk() {
+        handlers.orderedStream().forEach(handler -> {
+            try {
+                handler.onBulkChange();
+            } catch (RuntimeException e) {
+                log.warn("member change handler {} failed for bulk change", handler.getClass().getSimpleName(), e);
+            }
+        });
+    }
+
+    private class PendingChanges implements TransactionSynchronization {
+        private final List<MemberChange> changes = new ArrayList<>();
+        private boolean overflowed;
+
+        void add(MemberChange change) {
+            if (overflowed) {
+                return;
+            }
+            if (changes.size() >= maxPending) {
+                changes.clear();
+                overflowed = true;
+                return;
+            }
+            changes.add(change);
+        }
+
+        @Override
+        public void afterCommit() {
+            if (overflowed) {
+                dispatchBulk();
+            } else {
+                dispatch(changes);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.entity;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 특정 시점의 Member 상태. team 은 id 만 담아서 프록시를 초기화하지 않는다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class MemberSnapshot {
+
+    private final Long id;
+    private final String username;
+    private final int age;
+    private final Long teamId;
+
+    public MemberSnapshot(Long id, String username, int age, Long teamId) {
+        this.id = id;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+    }
+
+    public static MemberSnapshot of(Member member) {
+        Team team = member.getTeam();
+        return new MemberSnapshot(member.getId(), member.getUsername(), member.getAge(),
+                team != null ? team.getId() : null);
+    }
+}
@@ -0,0 +1,46 @@
+package study.querydsl.entity;
+
+import javax.persistence.PostUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Team 이 수정되면 커밋 후 MemberChangeHandler.onTeamChange 를 호출한다.
+ * 롤백되면 호출하지 않는다.
+ */
+@Slf4j
+public class TeamEntityListener {
+
+    private final ObjectProvider<MemberChangeHandler> handlers;
+
+    public TeamEntityListener(ObjectProvider<MemberChangeHandler> handlers) {
+        this.handlers = handlers;
+    }
+
+    @PostUpdate
+    public void postUpdate(Team team) {
+        Long teamId = team.getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatch(teamId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatch(teamId);
+            }
+        });
+    }
+
+    private void dispatch(Long teamId) {
+        handlers.orderedStream().forEach(handler -> {
+            try {
+                handler.onTeamChange(teamId);
+            } catch (RuntimeException e) {
+                log.warn("member change handler {} failed for team {}", handler.getClass().getSimpleName(), teamId, e);
+            }
+        });
+    }
+}
@@ -0,0 +1,37 @@
+package study.querydsl.entity;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * username 검색용 파생 값. 대소문자를 무시하는 비교와 부분 문자열 검색에 쓴다.
+ */
+public final class UsernameKeys {
+
+    public static final int GRAM_LENGTH = 3;
+
+    private UsernameKeys() {
+    }
+
+    public static String lower(String username) {
+        return username != null ? username.toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * 소문자로 바꾼 username 의 연속된 3글자 조각들. 앞에서부터 순서대로, 중복 없이 담는다.
+     * 3글자보다 짧으면 비어 있다.
+     */
+    public static Set<String> trigrams(String username) {
+        String lower = lower(username);
+        if (lower == null || lower.length() < GRAM_LENGTH) {
+            return Collections.emptySet();
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= lower.length(); i++) {
+            grams.add(lower.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,281 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.MemberChange;
+import study.querydsl.entity.MemberChangeHandler;
+import study.querydsl.entity.MemberSnapshot;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * team 별 나이 히스토그램. 나이 구간의 member 수를 DB 를 읽지 않고 O(log maxAge) 로 센다.
+ *
+ * team 마다 나이 0..maxAge 를 칸으로 하는 Fenwick tree 를 AtomicLongArray 에 둔다.
+ * 조회는 락 없이 읽고 객체를 만들지 않는다. 쓰기는 team 단위로 동기화한다.
+ * maxAge 밖의 나이는 양 끝 칸에 넣는다.
+ * 측정 오버헤드를 피하려고 @Repository 가 아닌 @Component 로 둔다(RepositoryMetricsAspect 제외).
+ *
+ * 변경은 DB 커밋 뒤에 전달되므로, 커밋은 집계 쿼리 전에 끝났는데 전달은 load 뒤에 오면 같은 행이 두 번 세어진다.
+ * 이런 차이는 주기적인 rebuild() 로 바로잡는다.
+ */
+@Slf4j
+@Component
+public class MemberAgeHistogram implements MemberChangeHandler {
+
+    private static final int MAX_RECOUNT_ATTEMPTS = 3;
+
+    private final JPAQueryFactory queryFactory;
+    private final int maxAge;
+
+    private final AgeTree total;
+    private final ConcurrentHashMap<Long, AgeTree> teams = new ConcurrentHashMap<>();
+
+    public MemberAgeHistogram(JPAQueryFactory queryFactory,
+                              @Value("${member.age-histogram.max-age:150}") int maxAge) {
+        this.queryFactory = queryFactory;
+        this.maxAge = maxAge;
+        this.total = new AgeTree(maxAge + 1);
+    }
+
+    /**
+     * ageGoe <= age <= ageLoe 인 member 수. teamId 가 null 이면 전체(team 이 없는 member 포함).
+     */
+    public long countByAge(Long teamId, Integer ageGoe, Integer ageLoe) {
+        AgeTree tree = tree(teamId);
+        if (tree == null) {
+            return 0;
+        }
+        int from = ageGoe != null ? Math.max(ageGoe, 0) : 0;
+        int to = ageLoe != null ? Math.min(ageLoe, maxAge) : maxAge;
+        return tree.range(from, to);
+    }
+
+    /**
+     * bucketWidth 살 단위 구간별 member 수. i 번째 값은 [i * bucketWidth, (i + 1) * bucketWidth) 구간이다.
+     */
+    public long[] distribution(Long teamId, int bucketWidth) {
+        if (bucketWidth < 1) {
+            throw new IllegalArgumentException("bucketWidth must be positive: " + bucketWidth);
+        }
+        long[] buckets = new long[maxAge / bucketWidth + 1];
+        AgeTree tree = tree(teamId);
+        if (tree == null) {
+            return buckets;
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            int from = i * bucketWidth;
+            buckets[i] = tree.range(from, Math.min(maxAge, from + bucketWidth - 1));
+        }
+        return buckets;
+    }
+
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    @Override
+    public void onMemberChange(MemberChange change) {
+        MemberSnapshot before = change.getBefore();
+        MemberSnapshot after = change.getAfter();
+        if (before != null && after != null
+                && before.getAge() == after.getAge()
+                && Objects.equals(before.getTeamId(), after.getTeamId())) {
+            return;
+        }
+        if (before != null) {
+            update(before.getTeamId(), before.getAge(), -1);
+        }
+        if (after != null) {
+            update(after.getTeamId(), after.getAge(), 1);
+        }
+    }
+
+    @Override
+    public void onBulkChange() {
+        rebuild();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * (team, age) 별 건수를 DB 에서 다시 읽어 채운다.
+     * 읽는 동안 바뀐 team 은 덮어쓰지 않고, 그 team 만 다시 세어 채운다.
+     */
+    @Scheduled(fixedDelayString = "${member.age-histogram.reconcile-interval:300000}",
+            initialDelayString = "${member.age-histogram.reconcile-interval:300000}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        long totalVersion = total.version();
+        Map<Long, Long> versions = new HashMap<>();
+        teams.forEach((teamId, tree) -> versions.put(teamId, tree.version()));
+
+        List<Tuple> rows = queryFactory
+                .select(member.team.id, member.age, member.count())
+                .from(member)
+                .groupBy(member.team.id, member.age)
+                .fetch();
+
+        long[] totalCounts = new long[maxAge + 1];
+        Map<Long, long[]> teamCounts = new HashMap<>();
+        for (Tuple row : rows) {
+            Long teamId = row.get(0, Long.class);
+            int slot = slot(row.get(1, Number.class).intValue());
+            long count = row.get(2, Number.class).longValue();
+            totalCounts[slot] += count;
+            if (teamId != null) {
+                teamCounts.computeIfAbsent(teamId, id -> new long[maxAge + 1])[slot] += count;
+            }
+        }
+
+        boolean totalLoaded = total.load(totalVersion, totalCounts);
+        List<Long> retry = new ArrayList<>();
+        for (Map.Entry<Long, long[]> entry : teamCounts.entrySet()) {
+            AgeTree tree = teams.computeIfAbsent(entry.getKey(), id -> new AgeTree(maxAge + 1));
+            if (!tree.load(versions.getOrDefault(entry.getKey(), 0L), entry.getValue())) {
+                retry.add(entry.getKey());
+            }
+        }
+        long[] empty = new long[maxAge + 1];
+        for (Map.Entry<Long, Long> entry : versions.entrySet()) {
+            if (!teamCounts.containsKey(entry.getKey())
+                    && !teams.get(entry.getKey()).load(entry.getValue(), empty)) {
+                retry.add(entry.getKey());
+            }
+        }
+
+        int skipped = 0;
+        if (!totalLoaded && !recount(null, total)) {
+            skipped++;
+        }
+        for (Long teamId : retry) {
+            if (!recount(teamId, teams.get(teamId))) {
+                skipped++;
+            }
+        }
+        log.info("member age histogram rebuilt: {} teams, {} recounted, {} skipped ({} ms)",
+                teamCounts.size(), retry.size() + (totalLoaded ? 0 : 1), skipped,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * team 하나(teamId 가 null 이면 전체)만 다시 센다. 세는 동안 또 바뀌면 MAX_RECOUNT_ATTEMPTS 번까지 다시 한다.
+     * 끝내 못 채우면 증분으로 유지한 값을 두고 다음 rebuild() 에 맡긴다.
+     */
+    private boolean recount(Long teamId, AgeTree tree) {
+        for (int attempt = 0; attempt < MAX_RECOUNT_ATTEMPTS; attempt++) {
+            long version = tree.version();
+            List<Tuple> rows = queryFactory
+                    .select(member.age, member.count())
+                    .from(member)
+                    .where(teamId != null ? member.team.id.eq(teamId) : null)
+                    .groupBy(member.age)
+                    .fetch();
+
+            long[] counts = new long[maxAge + 1];
+            for (Tuple row : rows) {
+                counts[slot(row.get(0, Number.class).intValue())] += row.get(1, Number.class).longValue();
+            }
+            if (tree.load(version, counts)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void update(Long teamId, int age, long delta) {
+        int slot = slot(age);
+        total.update(slot, delta);
+        if (teamId != null) {
+            teams.computeIfAbsent(teamId, id -> new AgeTree(maxAge + 1)).update(slot, delta);
+        }
+    }
+
+    private AgeTree tree(Long teamId) {
+        return teamId == null ? total : teams.get(teamId);
+    }
+
+    private int slot(int age) {
+        return Math.min(Math.max(age, 0), maxAge);
+    }
+
+    /**
+     * 1 부터 시작하는 Fenwick tree. slot 은 0 부터 시작한다.
+     */
+    static final class AgeTree {
+        private final int size;
+        private final AtomicLongArray tree;
+        private long version;
+
+        AgeTree(int size) {
+            this.size = size;
+            this.tree = new AtomicLongArray(size + 1);
+        }
+
+        synchronized void update(int slot, long delta) {
+            for (int i = slot + 1; i <= size; i += i & -i) {
+                tree.addAndGet(i, delta);
+            }
+            version++;
+        }
+
+        /**
+         * slot 0..to 의 합
+         */
+        long prefix(int to) {
+            long sum = 0;
+            for (int i = to + 1; i > 0; i -= i & -i) {
+                sum += tree.get(i);
+            }
+            return sum;
+        }
+
+        long range(int from, int to) {
+            if (from > to) {
+                return 0;
+            }
+            return prefix(to) - (from > 0 ? prefix(from - 1) : 0);
+        }
+
+        synchronized long version() {
+            return version;
+        }
+
+        /**
+         * counts 로 트리를 다시 만든다. 그 사이 update 가 있었으면 그대로 두고 false.
+         */
+        synchronized boolean load(long expectedVersion, long[] counts) {
+            if (version != expectedVersion) {
+                return false;
+            }
+            long[] built = new long[size + 1];
+            for (int i = 1; i <= size; i++) {
+                built[i] += counts[i - 1];
+                int parent = i + (i & -i);
+                if (parent <= size) {
+                    built[parent] += built[i];
+                }
+            }
+            for (int i = 1; i <= size; i++) {
+                tree.set(i, built[i]);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import javax.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.MemberChangeHandler;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberSearchCondition 기준 벌크 수정/삭제.
+ *
+ * 조건에 맞는 member.id 의 최소~최대 구간을 chunk-size 크기의 id 구간으로 나누고,
+ * 구간마다 새 트랜잭션에서 update/delete 한 번을 실행한다.
+ * 한 트랜잭션이 잡는 행 락은 chunk-size 개를 넘지 않고 구간마다 바로 커밋되므로 조회가 오래 막히지 않는다.
+ * 구간이 겹치지 않아 threads 가 1 보다 크면 여러 구간을 동시에 실행한다.
+ * 어느 쪽이든 끝나면 호출한 스레드의 영속성 컨텍스트(open-in-view)를 비우므로 이전에 조회한 Member 는 준영속이 된다.
+ */
+@Slf4j
+@Repository
+public class MemberBulkRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTransaction;
+    private final ObjectProvider<MemberChangeHandler> changeHandlers;
+    private final UsernameSearchSupport usernameSearch;
+    private final int chunkSize;
+    private final int threads;
+
+    public MemberBulkRepository(EntityManager em, JPAQueryFactory queryFactory,
+                                PlatformTransactionManager transactionManager,
+                                ObjectProvider<MemberChangeHandler> changeHandlers,
+                                UsernameSearchSupport usernameSearch,
+                                @Value("${member.bulk.chunk-size:1000}") int chunkSize,
+                                @Value("${member.bulk.threads:1}") int threads) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.changeHandlers = changeHandlers;
+        this.usernameSearch = usernameSearch;
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+    }
+
+    /**
+     * 변경할 컬럼은 updates 에서 지정한다.
+     * 예) bulkUpdate(condition, update -> update.set(member.age, member.age.add(1)))
+     * username 은 username_lower, trigram 이 함께 바뀌어야 하므로 벌크로 바꿀 수 없다.
+     *
+     * @return 수정된 행 수
+     * @throws IllegalArgumentException username 이나 usernameLower 를 바꾸려는 경우
+     */
+    public long bulkUpdate(MemberSearchCondition condition, Consumer<JPAUpdateClause> updates) {
+        // 실행하지 않고 바꾸는 컬럼만 먼저 검사한다
+        updates.accept(new UpdateColumnCheck(em));
+        return executeInChunks(condition, idRange -> {
+            JPAUpdateClause update = queryFactory.update(member);
+            updates.accept(update);
+            return update.where(idRange, conditionPredicate(condition)).execute();
+        });
+    }
+
+    /**
+     * @return 삭제된 행 수
+     */
+    public long bulkDelete(MemberSearchCondition condition) {
+        return executeInChunks(condition, idRange -> queryFactory
+                .delete(member)
+                .where(idRange, conditionPredicate(condition))
+                .execute());
+    }
+
+    private long executeInChunks(MemberSearchCondition condition, ChunkOperation operation) {
+        // 바깥 트랜잭션이 같은 행을 잡고 있으면 구간 트랜잭션이 그 락을 기다리며 멈춘다
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("bulk operations commit per chunk and must not run inside a transaction");
+        }
+
+        Tuple range = chunkTransaction.execute(status -> queryFactory
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .where(conditionPredicate(condition))
+                .fetchOne());
+        Long minId = range != null ? range.get(member.id.min()) : null;
+        Long maxId = range != null ? range.get(member.id.max()) : null;
+        if (minId == null || maxId == null) {
+            return 0;
+        }
+
+        List<long[]> chunks = new ArrayList<>();
+        for (long from = minId; from <= maxId; from += chunkSize) {
+            chunks.add(new long[]{from, Math.min(maxId, from + chunkSize - 1)});
+        }
+
+        long start = System.nanoTime();
+        long affected;
+        try {
+            affected = threads > 1 && chunks.size() > 1
+                    ? executeParallel(chunks, operation)
+                    : executeSequential(chunks, operation);
+        } finally {
+            // 일부 구간만 반영되고 실패해도 이미 커밋된 변경이 있다.
+            // 벌크 쿼리는 엔티티 리스너를 거치지 않으므로 결과 캐시를 포함한 핸들러에 직접 알린다
+            changeHandlers.orderedStream().forEach(MemberChangeHandler::onBulkChange);
+        }
+        log.info("bulk {} rows in {} chunks ({} ms)", affected, chunks.size(), (System.nanoTime() - start) / 1_000_000);
+        return affected;
+    }
+
+    private long executeSequential(List<long[]> chunks, ChunkOperation operation) {
+        long affected = 0;
+        for (long[] chunk : chunks) {
+            affected += executeChunk(chunk, operation);
+        }
+        return affected;
+    }
+
+    private long executeParallel(List<long[]> chunks, ChunkOperation operation) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, chunks.size()));
+        try {
+            List<Future<Long>> futures = new ArrayList<>(chunks.size());
+            for (long[] chunk : chunks) {
+                futures.add(executor.submit(() -> executeChunk(chunk, operation)));
+            }
+            long affected = 0;
+            for (Future<Long> future : futures) {
+                affected += future.get();
+            }
+            return affected;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("bulk operation interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("bulk operation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            // 구간은 다른 스레드의 영속성 컨텍스트에서 실행되므로 호출한 스레드의 컨텍스트는 여기서 비운다
+            em.clear();
+        }
+    }
+
+    private long executeChunk(long[] chunk, ChunkOperation operation) {
+        Long affected = chunkTransaction.execute(status -> {
+            // open-in-view 로 요청 스레드에 묶인 영속성 컨텍스트를 쓰는 경우 벌크 전 상태의 엔티티를 남기지 않는다.
+            // 트랜잭션 밖에서 바뀐 엔티티가 이 트랜잭션 커밋 때 함께 flush 되는 것도 막는다.
+            em.clear();
+            return operation.execute(member.id.between(chunk[0], chunk[1]));
+        });
+        return affected != null ? affected : 0;
+    }
+
+    /**
+     * update/delete 는 조인할 수 없으므로 teamName 조건은 서브쿼리로 건다.
+     */
+    private Predicate conditionPredicate(MemberSearchCondition condition) {
+        return ExpressionUtils.allOf(
+                usernameSearch.predicate(condition.getUsername(), condition.getUsernameMatch()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()));
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName)
+                ? member.team.id.in(JPAExpressions.select(team.id).from(team).where(team.name.eq(teamName)))
+                : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    /**
+     * bulkUpdate() 에 넘어온 set 대상을 검사만 한다. 실행하지 않는다.
+     */
+    private static class UpdateColumnCheck extends JPAUpdateClause {
+
+        UpdateColumnCheck(EntityManager em) {
+            super(em, member, HQLTemplates.DEFAULT);
+        }
+
+        @Override
+        public <T> JPAUpdateClause set(Path<T> path, T value) {
+            check(path);
+            return this;
+        }
+
+        @Override
+        public <T> JPAUpdateClause set(Path<T> path, Expression<? extends T> expression) {
+            check(path);
+            return this;
+        }
+
+        @Override
+        public <T> JPAUpdateClause setNull(Path<T> path) {
+            check(path);
+            return this;
+        }
+
+        @Override
+        public JPAUpdateClause set(List<? extends Path<?>> paths, List<?> values) {
+            paths.forEach(UpdateColumnCheck::check);
+            return this;
+        }
+
+        private static void check(Path<?> path) {
+            if (member.username.equals(path) || member.usernameLower.equals(path)) {
+                throw new IllegalArgumentException("username cannot be bulk updated: " + path);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkOperation {
+        long execute(Predicate idRange);
+    }
+}
@@ -0,0 +1,597 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+import study.querydsl.entity.MemberChange;
+import study.querydsl.entity.MemberChangeHandler;
+import study.querydsl.entity.MemberSnapshot;
+import study.querydsl.entity.UsernameKeys;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * Member/Team 의 읽기 전용 메모리 복제본. SearchMode.MEMORY 로 search() 를 DB 없이 처리한다.
+ *
+ * 행마다 id/age 는 primitive 배열에, username 과 team 은 사전 코드로 저장한다.
+ * team 과 나이 구간(bucket-width 살)마다 BitSet 인덱스를 두고
+ * MemberSearchCondition 은 BitSet 교집합으로 후보를 줄인 뒤 행 단위로 나이를 확인한다.
+ * username 조건은 username 사전에서 맞는 코드를 찾고 코드별 행 목록에서 시작한다.
+ * 사전은 소문자 값의 TreeMap(IGNORE_CASE, PREFIX)과 trigram 별 코드 목록(CONTAINS)으로 찾는다.
+ *
+ * 시작 시 DB 에서 읽고, 커밋된 Member/Team 변경으로 갱신하며, 주기적으로 다시 읽는다.
+ * 다시 읽을 때 member 는 JDBC 커서로 한 행씩 컬럼에 넣으므로 테이블 전체를 List 로 들고 있지 않는다.
+ * 변경은 id 기준 upsert/delete 로 적용하므로 다시 읽는 동안 들어온 변경을 새 데이터에 한 번 더 적용해도 결과가 같다.
+ */
+@Slf4j
+@Component
+public class MemberColumnStore implements MemberChangeHandler {
+
+    private static final int RELOAD_FETCH_SIZE = 500;
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final int bucketWidth;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Columns columns;
+    private List<ResolvedChange> pendingChanges;
+
+    public MemberColumnStore(JPAQueryFactory queryFactory,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${member.column-store.enabled:false}") boolean enabled,
+                             @Value("${member.column-store.age-bucket-width:10}") int bucketWidth) {
+        this.queryFactory = queryFactory;
+        // onMemberChange/onTeamChange 는 다른 트랜잭션의 afterCommit 에서 불리므로 새 트랜잭션에서 읽는다
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.bucketWidth = bucketWidth;
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        lock.readLock().lock();
+        try {
+            if (columns == null) {
+                throw new IllegalStateException("member column store is not loaded (member.column-store.enabled=" + enabled + ")");
+            }
+            return columns.search(condition);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 비활성이거나 아직 처음 읽기 전이면 false. 이때 search() 는 IllegalStateException 을 던진다.
+     */
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return columns != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getRowCount() {
+        lock.readLock().lock();
+        try {
+            return columns != null ? columns.live.cardinality() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${member.column-store.reload-interval:600000}",
+            initialDelayString = "${member.column-store.reload-interval:600000}")
+    public void scheduledReload() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * DB 에서 새로 읽어 교체한다. 읽는 동안 들어온 변경은 모아 두었다가 새 데이터에 적용한다.
+     * 동시에 두 번 읽지 않도록 synchronized 로 막는다.
+     */
+    public synchronized void reload() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Columns loaded = new Columns(bucketWidth);
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> load(loaded));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            replayed = pendingChanges.size();
+            for (ResolvedChange change : pendingChanges) {
+                loaded.apply(change);
+            }
+            columns = loaded;
+            pendingChanges = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("member column store loaded: {} rows, {} teams, {} replayed ({} ms)",
+                loaded.live.cardinality(), loaded.teamIds.size(), replayed, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void load(Columns loaded) {
+        for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+            loaded.teamCode(row.get(team.id), row.get(team.name));
+        }
+        org.hibernate.query.Query<?> query = queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .orderBy(member.id.asc())
+                .createQuery()
+                .unwrap(org.hibernate.query.Query.class);
+
+        try (ScrollableResults rows = query
+                .setFetchSize(RELOAD_FETCH_SIZE)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                loaded.upsert((Long) rows.get(0), (String) rows.get(1), (Integer) rows.get(2), (Long) rows.get(3), null);
+            }
+        }
+    }
+
+    @Override
+    public void onMemberChange(MemberChange change) {
+        if (!enabled) {
+            return;
+        }
+        MemberSnapshot after = change.getAfter();
+        String teamName = null;
+        if (after != null && after.getTeamId() != null && !isKnownTeam(after.getTeamId())) {
+            // 처음 보는 team 은 이름을 락 밖에서 읽어 둔다
+            Long teamId = after.getTeamId();
+            teamName = findTeamName(teamId);
+        }
+        ResolvedChange resolved = new ResolvedChange(change, null, teamName);
+
+        lock.writeLock().lock();
+        try {
+            if (columns != null) {
+                columns.apply(resolved);
+            }
+            if (pendingChanges != null) {
+                pendingChanges.add(resolved);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onBulkChange() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * 바뀐 team 이름을 읽어 사전을 고친다. 다시 읽는 중이면 새 데이터에도 적용한다.
+     */
+    @Override
+    public void onTeamChange(Long teamId) {
+        if (!enabled) {
+            return;
+        }
+        ResolvedChange resolved = new ResolvedChange(null, teamId, findTeamName(teamId));
+
+        lock.writeLock().lock();
+        try {
+            if (columns != null) {
+                columns.apply(resolved);
+            }
+            if (pendingChanges != null) {
+                pendingChanges.add(resolved);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private String findTeamName(Long teamId) {
+        return readOnlyTransaction.execute(status ->
+                queryFactory.select(team.name).from(team).where(team.id.eq(teamId)).fetchOne());
+    }
+
+    private boolean isKnownTeam(Long teamId) {
+        lock.readLock().lock();
+        try {
+            return columns != null && columns.teamCodeById.containsKey(teamId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * change 가 null 이면 teamId 의 이름이 teamName 으로 바뀐 것이다.
+     */
+    private static class ResolvedChange {
+        private final MemberChange change;
+        private final Long teamId;
+        private final String teamName;
+
+        ResolvedChange(MemberChange change, Long teamId, String teamName) {
+            this.change = change;
+            this.teamId = teamId;
+            this.teamName = teamName;
+        }
+    }
+
+    /**
+     * 컬럼과 인덱스. 동기화는 MemberColumnStore 의 락으로 한다.
+     * 삭제된 행은 live 에서만 빠지고 자리는 다시 읽을 때 정리된다.
+     */
+    private static final class Columns {
+        private static final int NO_TEAM = -1;
+
+        private final int bucketWidth;
+
+        private int size;
+        private long[] ids = new long[1024];
+        private int[] ages = new int[1024];
+        private int[] usernameCodes = new int[1024];
+        private int[] teamCodes = new int[1024];
+        private final BitSet live = new BitSet();
+        private final Map<Long, Integer> rowById = new HashMap<>();
+
+        private final List<String> usernames = new ArrayList<>();
+        private final Map<String, Integer> usernameCodeByValue = new HashMap<>();
+        private final List<IntList> rowsByUsername = new ArrayList<>();
+        private final List<String> usernameLowers = new ArrayList<>();
+        private final TreeMap<String, IntList> codesByLower = new TreeMap<>();
+        private final Map<String, IntList> codesByGram = new HashMap<>();
+
+        private final List<Long> teamIds = new ArrayList<>();
+        private final List<String> teamNames = new ArrayList<>();
+        private final Map<Long, Integer> teamCodeById = new HashMap<>();
+        private final Map<String, List<Integer>> teamCodesByName = new HashMap<>();
+        private final List<BitSet> rowsByTeam = new ArrayList<>();
+
+        private final List<BitSet> rowsByAgeBucket = new ArrayList<>();
+
+        Columns(int bucketWidth) {
+            this.bucketWidth = bucketWidth;
+        }
+
+        List<MemberTeamDto> search(MemberSearchCondition condition) {
+            String username = hasText(condition.getUsername()) ? condition.getUsername() : null;
+            String teamName = hasText(condition.getTeamName()) ? condition.getTeamName() : null;
+            Integer ageGoe = condition.getAgeGoe();
+            Integer ageLoe = condition.getAgeLoe();
+
+            if (username != null) {
+                return searchByUsername(username, condition.getUsernameMatch(), teamName, ageGoe, ageLoe);
+            }
+
+            BitSet candidates;
+            if (teamName != null) {
+                List<Integer> codes = teamCodesByName.get(teamName);
+                if (codes == null) {
+                    return Collections.emptyList();
+                }
+                candidates = new BitSet();
+                for (int code : codes) {
+                    candidates.or(rowsByTeam.get(code));
+                }
+            } else {
+                candidates = (BitSet) live.clone();
+            }
+            if (ageGoe != null || ageLoe != null) {
+                int from = ageGoe != null ? bucket(ageGoe) : 0;
+                int to = ageLoe != null ? Math.min(bucket(ageLoe), rowsByAgeBucket.size() - 1) : rowsByAgeBucket.size() - 1;
+                BitSet ageRows = new BitSet();
+                for (int b = from; b <= to; b++) {
+                    ageRows.or(rowsByAgeBucket.get(b));
+                }
+                candidates.and(ageRows);
+            }
+
+            List<MemberTeamDto> result = new ArrayList<>();
+            for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+                if (ageMatches(row, ageGoe, ageLoe)) {
+                    result.add(toDto(row));
+                }
+            }
+            return result;
+        }
+
+        /**
+         * username 이 같은 행은 적으므로 BitSet 을 만들지 않고 행 목록을 바로 거른다.
+         */
+        private List<MemberTeamDto> searchByUsername(String username, UsernameMatch match,
+                                                     String teamName, Integer ageGoe, Integer ageLoe) {
+            IntList codes = usernameCodes(username, UsernameMatch.orDefault(match));
+            List<MemberTeamDto> result = new ArrayList<>();
+            for (int c = 0; c < codes.size; c++) {
+                int code = codes.values[c];
+                IntList rows = rowsByUsername.get(code);
+                for (int i = 0; i < rows.size; i++) {
+                    int row = rows.values[i];
+                    // 이름이 바뀐 행도 목록에 남아 있으므로 현재 코드를 다시 확인한다
+                    if (live.get(row) && usernameCodes[row] == code
+                            && teamMatches(row, teamName) && ageMatches(row, ageGoe, ageLoe)) {
+                        result.add(toDto(row));
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * match 로 username 과 맞는 사전 코드.
+         * CONTAINS 는 가장 짧은 trigram 목록에서 후보를 고르고 부분 문자열인지 확인한다. 3글자보다 짧으면 사전 전체를 본다.
+         */
+        private IntList usernameCodes(String username, UsernameMatch match) {
+            IntList codes = new IntList();
+            String lower = UsernameKeys.lower(username);
+            switch (match) {
+                case IGNORE_CASE:
+                    IntList same = codesByLower.get(lower);
+                    return same != null ? same : codes;
+                case PREFIX:
+                    for (IntList prefixed : codesByLower.subMap(lower, true,
+                            UsernameSearchSupport.prefixUpperBound(lower), false).values()) {
+                        codes.addAll(prefixed);
+                    }
+                    return codes;
+                case CONTAINS:
+                    IntList candidates = null;
+                    for (String gram : UsernameKeys.trigrams(lower)) {
+                        IntList gramCodes = codesByGram.get(gram);
+                        if (gramCodes == null) {
+                            return codes;
+                        }
+                        if (candidates == null || gramCodes.size < candidates.size) {
+                            candidates = gramCodes;
+                        }
+                    }
+                    int count = candidates != null ? candidates.size : usernameLowers.size();
+                    for (int i = 0; i < count; i++) {
+                        int code = candidates != null ? candidates.values[i] : i;
+                        if (usernameLowers.get(code).contains(lower)) {
+                            codes.add(code);
+                        }
+                    }
+                    return codes;
+                default:
+                    Integer code = usernameCodeByValue.get(username);
+                    if (code != null) {
+                        codes.add(code);
+                    }
+                    return codes;
+            }
+        }
+
+        void apply(ResolvedChange resolved) {
+            if (resolved.change == null) {
+                renameTeam(resolved.teamId, resolved.teamName);
+                return;
+            }
+            MemberSnapshot after = resolved.change.getAfter();
+            if (after == null) {
+                delete(resolved.change.getBefore().getId());
+            } else {
+                upsert(after.getId(), after.getUsername(), after.getAge(), after.getTeamId(), resolved.teamName);
+            }
+        }
+
+        void upsert(Long id, String username, int age, Long teamId, String teamName) {
+            Integer existing = rowById.get(id);
+            int usernameCode = usernameCode(username);
+            int row;
+            if (existing == null) {
+                row = size++;
+                ensureCapacity(size);
+                ids[row] = id;
+                rowById.put(id, row);
+                live.set(row);
+                rowsByUsername.get(usernameCode).add(row);
+            } else {
+                row = existing;
+                unindex(row);
+                if (usernameCodes[row] != usernameCode && !rowsByUsername.get(usernameCode).contains(row)) {
+                    rowsByUsername.get(usernameCode).add(row);
+                }
+            }
+            ages[row] = age;
+            usernameCodes[row] = usernameCode;
+            teamCodes[row] = teamId != null ? teamCode(teamId, teamName) : NO_TEAM;
+
+            if (teamCodes[row] != NO_TEAM) {
+                rowsByTeam.get(teamCodes[row]).set(row);
+            }
+            ageBucket(bucket(age)).set(row);
+        }
+
+        void delete(Long id) {
+            Integer row = rowById.remove(id);
+            if (row != null) {
+                unindex(row);
+                live.clear(row);
+            }
+        }
+
+        private void unindex(int row) {
+            if (teamCodes[row] != NO_TEAM) {
+                rowsByTeam.get(teamCodes[row]).clear(row);
+            }
+            rowsByAgeBucket.get(bucket(ages[row])).clear(row);
+        }
+
+        /**
+         * 이름을 모르는 team 은 null 이름으로 등록하고, 나중에 이름을 알게 되면 채운다.
+         */
+        int teamCode(Long teamId, String teamName) {
+            Integer code = teamCodeById.get(teamId);
+            if (code == null) {
+                code = teamIds.size();
+                teamIds.add(teamId);
+                teamNames.add(null);
+                teamCodeById.put(teamId, code);
+                rowsByTeam.add(new BitSet());
+            }
+            if (teamName != null && teamNames.get(code) == null) {
+                teamNames.set(code, teamName);
+                teamCodesByName.computeIfAbsent(teamName, name -> new ArrayList<>(1)).add(code);
+            }
+            return code;
+        }
+
+        void renameTeam(Long teamId, String teamName) {
+            Integer code = teamCodeById.get(teamId);
+            if (code == null || Objects.equals(teamNames.get(code), teamName)) {
+                return;
+            }
+            String oldName = teamNames.get(code);
+            if (oldName != null) {
+                List<Integer> codes = teamCodesByName.get(oldName);
+                codes.remove(code);
+                if (codes.isEmpty()) {
+                    teamCodesByName.remove(oldName);
+                }
+            }
+            teamNames.set(code, teamName);
+            if (teamName != null) {
+                teamCodesByName.computeIfAbsent(teamName, name -> new ArrayList<>(1)).add(code);
+            }
+        }
+
+        private int usernameCode(String username) {
+            Integer code = usernameCodeByValue.get(username);
+            if (code == null) {
+                code = usernames.size();
+                usernames.add(username);
+                usernameCodeByValue.put(username, code);
+                rowsByUsername.add(new IntList());
+
+                String lower = UsernameKeys.lower(username);
+                usernameLowers.add(lower);
+                codesByLower.computeIfAbsent(lower, key -> new IntList()).add(code);
+                for (String gram : UsernameKeys.trigrams(lower)) {
+                    codesByGram.computeIfAbsent(gram, key -> new IntList()).add(code);
+                }
+            }
+            return code;
+        }
+
+        private BitSet ageBucket(int bucket) {
+            while (rowsByAgeBucket.size() <= bucket) {
+                rowsByAgeBucket.add(new BitSet());
+            }
+            return rowsByAgeBucket.get(bucket);
+        }
+
+        private int bucket(int age) {
+            return Math.max(age, 0) / bucketWidth;
+        }
+
+        private boolean teamMatches(int row, String teamName) {
+            return teamName == null
+                    || (teamCodes[row] != NO_TEAM && teamName.equals(teamNames.get(teamCodes[row])));
+        }
+
+        private boolean ageMatches(int row, Integer ageGoe, Integer ageLoe) {
+            return (ageGoe == null || ages[row] >= ageGoe) && (ageLoe == null || ages[row] <= ageLoe);
+        }
+
+        private MemberTeamDto toDto(int row) {
+            int teamCode = teamCodes[row];
+            return new MemberTeamDto(ids[row], usernames.get(usernameCodes[row]), ages[row],
+                    teamCode != NO_TEAM ? teamIds.get(teamCode) : null,
+                    teamCode != NO_TEAM ? teamNames.get(teamCode) : null);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > ids.length) {
+                int newLength = Math.max(capacity, ids.length * 2);
+                ids = Arrays.copyOf(ids, newLength);
+                ages = Arrays.copyOf(ages, newLength);
+                usernameCodes = Arrays.copyOf(usernameCodes, newLength);
+                teamCodes = Arrays.copyOf(teamCodes, newLength);
+            }
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(IntList other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        boolean contains(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
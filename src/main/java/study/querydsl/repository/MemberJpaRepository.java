@@ -1,14 +1,34 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import javax.persistence.EntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberCursorPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
@@ -22,12 +42,46 @@ import static study.querydsl.entity.QTeam.team;
 @Repository
 public class MemberJpaRepository {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final int INSERT_CHUNK_SIZE = 100; // hibernate.jdbc.batch_size 와 맞춘다
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchQueryCache searchQueryCache;
+    private final MemberSearchResultCache searchResultCache;
+    private final MemberSearchCoalescer searchCoalescer;
+    private final MemberSqlRepository memberSqlRepository;
+    private final MemberColumnStore memberColumnStore;
+    private final UsernameSearchSupport usernameSearch;
+    private final MemberSearchExecutor searchExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final SearchMode defaultSearchMode;
+    private final boolean readOnlyQueries;
 
-    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory) {
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory,
+                               MemberSearchQueryCache searchQueryCache,
+                               MemberSearchResultCache searchResultCache,
+                               MemberSearchCoalescer searchCoalescer,
+                               MemberSqlRepository memberSqlRepository,
+                               MemberColumnStore memberColumnStore,
+                               UsernameSearchSupport usernameSearch,
+                               MemberSearchExecutor searchExecutor,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${member.search.mode:JPA}") SearchMode defaultSearchMode,
+                               @Value("${member.repository.read-only-queries:true}") boolean readOnlyQueries) {
         this.em = em;
         this.queryFactory = queryFactory;
+        this.searchQueryCache = searchQueryCache;
+        this.searchResultCache = searchResultCache;
+        this.searchCoalescer = searchCoalescer;
+        this.memberSqlRepository = memberSqlRepository;
+        this.memberColumnStore = memberColumnStore;
+        this.usernameSearch = usernameSearch;
+        this.searchExecutor = searchExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.defaultSearchMode = defaultSearchMode;
+        this.readOnlyQueries = readOnlyQueries;
     }
 
 //    public MemberJpaRepository(EntityManager em) {
@@ -39,6 +93,26 @@ public class MemberJpaRepository {
 
     public void save(Member member) {
         em.persist(member);
+        searchResultCache.invalidate(member);
+    }
+
+    /**
+     * 대량 저장용. INSERT_CHUNK_SIZE 마다 flush 해서 JDBC batch 로 보내고 영속성 컨텍스트를 비운다.
+     * 호출 전에 관리되던 엔티티도 모두 준영속 상태가 된다.
+     */
+    @Transactional
+    public void saveAll(Collection<Member> members) {
+        int count = 0;
+        for (Member member : members) {
+            em.persist(member);
+            if (++count % INSERT_CHUNK_SIZE == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        searchResultCache.evictAll();
     }
 
     public Optional<Member> findById(Long id) {
@@ -46,30 +120,52 @@ public class MemberJpaRepository {
         return Optional.ofNullable(findMember);
     }
 
+    /*
+     * 아래 조회 메서드는 읽기 전용 트랜잭션에서 호출되면 엔티티를 읽기 전용으로 읽는다.
+     * 새 트랜잭션이면 readOnly 로 FlushMode.MANUAL 이 되고,
+     * READ_ONLY 힌트로 스냅샷을 남기지 않아 flush 때 dirty checking 대상에서 빠진다.
+     * 호출자의 읽기/쓰기 트랜잭션에 참여하면 힌트를 주지 않으므로 돌려받은 엔티티를 수정하면 반영된다.
+     * member.repository.read-only-queries=false 로 힌트를 끌 수 있다.
+     */
+
+    @Transactional(readOnly = true)
     public List<Member> findAll() {
-        return em.createQuery("select m from Member m", Member.class).getResultList();
+        return em.createQuery("select m from Member m", Member.class)
+                .setHint(QueryHints.READ_ONLY, readOnlyHint())
+                .getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findAll_Querydsl() {
-        return queryFactory.selectFrom(member).fetch();
+        return queryFactory.selectFrom(member)
+                .setHint(QueryHints.READ_ONLY, readOnlyHint())
+                .fetch();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findByUsername(String username) {
         return em.createQuery("select m from Member m where m.username = :username", Member.class)
                 .setParameter("username", username)
+                .setHint(QueryHints.READ_ONLY, readOnlyHint())
                 .getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findByUsername_Querydsl(String username) {
         return queryFactory.selectFrom(member)
                 .where(member.username.eq(username))
+                .setHint(QueryHints.READ_ONLY, readOnlyHint())
                 .fetch();
     }
 
+    private boolean readOnlyHint() {
+        return readOnlyQueries && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
         BooleanBuilder builder = new BooleanBuilder();
         if (hasText(condition.getUsername())) {
-            builder.and(member.username.eq(condition.getUsername()));
+            builder.and(usernameSearch.predicate(condition.getUsername(), condition.getUsernameMatch()));
         }
         if (hasText(condition.getTeamName())) {
             builder.and(team.name.eq(condition.getTeamName()));
@@ -95,22 +191,213 @@ public class MemberJpaRepository {
     }
 
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
+        return searchQueryCache.search(condition);
+    }
+
+    /**
+     * 같은 조건이 반복되는 조회용. 결과는 MemberSearchResultCache 에 보관된다.
+     * 캐시 미스가 동시에 나도 DB 조회는 조건마다 한 번만 실행된다.
+     */
+    public List<MemberTeamDto> searchCached(MemberSearchCondition condition) {
+        return searchResultCache.get(condition, this::searchCoalesced);
+    }
+
+    /**
+     * 동시에 들어온 같은 조건의 조회를 하나로 묶는다. 캐시는 거치지 않는다.
+     */
+    public List<MemberTeamDto> searchCoalesced(MemberSearchCondition condition) {
+        return searchCoalescer.execute(condition, this::searchDefault);
+    }
+
+    /**
+     * member.search.mode 로 정한 경로로 조회한다.
+     */
+    public List<MemberTeamDto> searchDefault(MemberSearchCondition condition) {
+        return search(condition, defaultSearchMode);
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition, SearchMode mode) {
+        if (mode == SearchMode.SQL) {
+            return memberSqlRepository.search(condition);
+        }
+        // 컬럼 저장소가 꺼져 있거나 아직 읽기 전이면 JPA 로 조회한다
+        if (mode == SearchMode.MEMORY && memberColumnStore.isLoaded()) {
+            return memberColumnStore.search(condition);
+        }
+        return search(condition);
+    }
+
+    /**
+     * 매 호출마다 Querydsl 쿼리를 새로 만드는 search(). 캐시된 쿼리와 결과 비교용
+     */
+    public List<MemberTeamDto> searchUncached(MemberSearchCondition condition) {
+        return searchQuery(memberTeamDto(), condition).fetch();
+    }
+
+    /**
+     * 결과를 List 로 모으지 않고 JDBC 커서로 한 행씩 넘긴다.
+     * DTO 프로젝션이라 영속성 컨텍스트에 엔티티가 쌓이지 않는다.
+     */
+    @Transactional(readOnly = true)
+    public void searchStream(MemberSearchCondition condition, Consumer<MemberTeamDto> consumer) {
+        QMemberTeamDto projection = memberTeamDto();
+        org.hibernate.query.Query<?> query = searchQuery(projection, condition)
+                .orderBy(member.id.asc())
+                .createQuery()
+                .unwrap(org.hibernate.query.Query.class);
+
+        try (ScrollableResults results = query
+                .setFetchSize(STREAM_FETCH_SIZE)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept(projection.newInstance(results.get()));
+            }
+        }
+    }
+
+    /**
+     * 카운트 쿼리는 필요할 때만 실행한다.
+     * 첫 페이지가 size 보다 작거나 마지막 페이지면 content 크기로 total 을 계산한다.
+     */
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = searchQuery(memberTeamDto(), condition)
+                .orderBy(member.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        JPAQuery<Long> countQuery = searchCountQuery(condition);
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    /**
+     * searchPage() 와 결과는 같고, 카운트 쿼리를 MemberSearchExecutor 에서 content 쿼리와 동시에 실행한다.
+     * content 는 호출자 트랜잭션(없으면 새 읽기 전용 트랜잭션)에서, 카운트는 풀 스레드의 새 읽기 전용 트랜잭션에서 실행하므로
+     * 요청 하나가 커넥션을 최대 2개 쓰고, 요청당 동시 실행은 카운트 하나뿐이다.
+     * 비어 있는 워커가 없거나 카운트가 MemberSearchExecutor 의 timeout 안에 끝나지 않으면
+     * (요청 스레드들이 커넥션을 모두 쥐고 있어 워커가 커넥션을 못 얻는 경우 등) 호출자 스레드에서 카운트를 다시 실행한다.
+     * 두 쿼리는 서로 다른 스냅샷을 읽는다. 그 사이 커밋된 변경이나 호출자 트랜잭션의 커밋 전 변경은
+     * content 에만 보일 수 있어 total 이 content 와 어긋날 수 있다.
+     * 카운트가 필요 없는 페이지면 카운트 결과는 버린다.
+     */
+    public Page<MemberTeamDto> searchPageConcurrent(MemberSearchCondition condition, Pageable pageable) {
+        Optional<CompletableFuture<Long>> total = searchExecutor.trySupply(() -> count(condition));
+
+        List<MemberTeamDto> content = readOnlyTransaction.execute(status ->
+                searchQuery(memberTeamDto(), condition)
+                        .orderBy(member.id.asc())
+                        .offset(pageable.getOffset())
+                        .limit(pageable.getPageSize())
+                        .fetch());
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> total.map(future -> await(future, condition)).orElseGet(() -> count(condition)));
+    }
+
+    private Long count(MemberSearchCondition condition) {
+        return readOnlyTransaction.execute(status -> searchCountQuery(condition).fetchOne());
+    }
+
+    private Long await(CompletableFuture<Long> future, MemberSearchCondition condition) {
+        try {
+            return future.get(searchExecutor.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            return count(condition);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("count query interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("count query failed", e.getCause());
+        }
+    }
+
+    /**
+     * teamName 조건이 없으면 team 조인 없이 member 만 카운트한다.
+     */
+    private JPAQuery<Long> searchCountQuery(MemberSearchCondition condition) {
+        JPAQuery<Long> countQuery = queryFactory
+                .select(member.count())
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            countQuery.join(member.team, team);
+        }
+        return countQuery
+                .where(usernameMatches(condition),
                         teamNameEq(condition.getTeamName()),
-                        //ageBetween(condition.getAgeLoe(), condition.getAgeGoe())
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                ).fetch();
+                        ageLoe(condition.getAgeLoe()));
+    }
+
+    /**
+     * member.id 기준 keyset 페이징. lastMemberId 다음부터 size 건을 조회한다.
+     */
+    public MemberCursorPage searchByCursor(MemberSearchCondition condition, Long lastMemberId, int size) {
+        MemberCursorPage.checkSize(size);
+        List<MemberTeamDto> rows = searchQuery(memberTeamDto(), condition)
+                .where(memberIdGt(lastMemberId))
+                .orderBy(member.id.asc())
+                .limit(size + 1)
+                .fetch();
+        return MemberCursorPage.of(rows, size);
+    }
+
+    /**
+     * (age, member.id) 기준 keyset 페이징. 커서는 이전 페이지 마지막 행의 age, memberId.
+     */
+    public MemberCursorPage searchByAgeCursor(MemberSearchCondition condition, Integer lastAge, Long lastMemberId, int size) {
+        MemberCursorPage.checkSize(size);
+        List<MemberTeamDto> rows = searchQuery(memberTeamDto(), condition)
+                .where(ageCursorAfter(lastAge, lastMemberId))
+                .orderBy(member.age.asc(), member.id.asc())
+                .limit(size + 1)
+                .fetch();
+        return MemberCursorPage.of(rows, size);
+    }
+
+    /**
+     * search 계열 공통 from/join/where.
+     * teamName 조건이 있으면 결과가 같은 inner join 을 써서 team.name 인덱스부터 조인할 수 있게 한다.
+     */
+    private <T> JPAQuery<T> searchQuery(Expression<T> projection, MemberSearchCondition condition) {
+        JPAQuery<T> query = queryFactory
+                .select(projection)
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        } else {
+            query.leftJoin(member.team, team);
+        }
+        return query
+                .where(usernameMatches(condition),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()));
+    }
+
+    private QMemberTeamDto memberTeamDto() {
+        return new QMemberTeamDto(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName"));
+    }
+
+    private BooleanExpression memberIdGt(Long lastMemberId) {
+        return lastMemberId != null ? member.id.gt(lastMemberId) : null;
+    }
+
+    private BooleanExpression ageCursorAfter(Integer lastAge, Long lastMemberId) {
+        if (lastAge == null || lastMemberId == null) {
+            return null;
+        }
+        return member.age.gt(lastAge)
+                .or(member.age.eq(lastAge).and(member.id.gt(lastMemberId)));
     }
 
     private BooleanExpression ageBetween(int ageLoe, int ageGoe) {
@@ -130,8 +417,8 @@ public class MemberJpaRepository {
         return hasText(teamName) ? team.name.eq(teamName) : null;
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+    private BooleanExpression usernameMatches(MemberSearchCondition condition) {
+        return usernameSearch.predicate(condition.getUsername(), condition.getUsernameMatch());
     }
 
 }
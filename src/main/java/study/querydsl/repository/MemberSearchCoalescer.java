@@ -0,0 +1,94 @@
+package study.querydsl.repository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * 같은 조건의 search() 가 동시에 들어오면 먼저 온 호출만 DB 를 조회하고 나머지는 그 결과를 기다려 함께 쓴다.
+ * 결과는 조회가 끝나는 즉시 버리므로 캐시처럼 오래된 값을 돌려주지 않는다.
+ * 트랜잭션 안의 호출은 커밋 전 변경이 다른 호출에 보이면 안 되므로 묶지 않는다.
+ */
+@Component
+public class MemberSearchCoalescer {
+
+    private final boolean enabled;
+    private final ConcurrentHashMap<MemberSearchCondition, CompletableFuture<List<MemberTeamDto>>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    public MemberSearchCoalescer(@Value("${member.search.coalesce:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<MemberTeamDto> execute(MemberSearchCondition condition,
+                                       Function<MemberSearchCondition, List<MemberTeamDto>> loader) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loader.apply(condition);
+        }
+        MemberSearchCondition key = MemberSearchResultCache.normalize(condition);
+        CompletableFuture<List<MemberTeamDto>> future = new CompletableFuture<>();
+        CompletableFuture<List<MemberTeamDto>> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            shared.increment();
+            return join(running);
+        }
+
+        executions.increment();
+        List<MemberTeamDto> result;
+        try {
+            result = Collections.unmodifiableList(loader.apply(key));
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        // 완료 전에 먼저 빼야 이후에 온 호출이 끝난 결과를 받아 가지 않는다
+        inFlight.remove(key, future);
+        future.complete(result);
+        return result;
+    }
+
+    /**
+     * 실제로 DB 조회를 실행한 횟수
+     */
+    public long getExecutionCount() {
+        return executions.sum();
+    }
+
+    /**
+     * 다른 호출의 결과를 받아 간 횟수
+     */
+    public long getSharedCount() {
+        return shared.sum();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private static List<MemberTeamDto> join(CompletableFuture<List<MemberTeamDto>> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package study.querydsl.repository;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * 검색 쿼리를 나눠 실행할 때 쓰는 크기가 정해진 스레드 풀.
+ * 작업을 맡긴 요청도 자기 커넥션을 쥐고 기다리므로 워커 수는 커넥션 풀의 절반을 넘지 않는다.
+ * 큐가 없어서 비어 있는 워커가 없으면 작업을 받지 않고, 호출자가 자기 스레드에서 순차 실행한다.
+ * 그래도 요청 스레드들이 커넥션을 모두 쥐고 있으면 워커가 커넥션을 못 얻을 수 있으므로
+ * 호출자는 {@link #getTimeout()} 까지만 기다리고 순차 실행으로 넘어가야 한다.
+ * Executor 빈으로 등록하면 스프링 부트의 기본 applicationTaskExecutor 가 빠지므로 감싸서 등록한다.
+ */
+@Component
+public class MemberSearchExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+
+    public MemberSearchExecutor(@Value("${member.search.page.threads:4}") int threads,
+                                @Value("${member.search.page.timeout:1s}") Duration timeout,
+                                @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        int workers = Math.max(1, Math.min(threads, poolSize / 2));
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                new CustomizableThreadFactory("member-search-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.timeout = timeout;
+    }
+
+    /**
+     * 비어 있는 워커가 있으면 task 를 맡기고, 없으면 empty 를 돌려준다.
+     */
+    public <T> Optional<CompletableFuture<T>> trySupply(Supplier<T> task) {
+        try {
+            return Optional.of(CompletableFuture.supplyAsync(task, executor));
+        } catch (RejectedExecutionException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 맡긴 작업의 결과를 기다리는 최대 시간.
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    int getWorkers() {
+        return executor.getMaximumPoolSize();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,167 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.StringExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+import study.querydsl.entity.UsernameKeys;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.SearchShape.AGE_GOE;
+import static study.querydsl.repository.SearchShape.AGE_LOE;
+import static study.querydsl.repository.SearchShape.TEAM_NAME;
+import static study.querydsl.repository.SearchShape.USERNAME;
+import static study.querydsl.repository.SearchShape.has;
+
+/**
+ * search() 의 JPQL 을 조건 조합(shape)별로 한 번만 만들어 두고,
+ * 이후 요청에서는 파라미터 바인딩만 한다.
+ * username CONTAINS 는 trigram 을 쓸 수 있는지(3글자 이상)에 따라 JPQL 이 달라서 칸을 따로 둔다.
+ */
+@Component
+public class MemberSearchQueryCache {
+
+    private static final QMemberTeamDto PROJECTION = new QMemberTeamDto(
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            team.id.as("teamId"),
+            team.name.as("teamName"));
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final UsernameSearchSupport usernameSearch;
+
+    private final AtomicReferenceArray<String> queries = new AtomicReferenceArray<>(SearchShape.COUNT * 2);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public MemberSearchQueryCache(EntityManager em, JPAQueryFactory queryFactory,
+                                  UsernameSearchSupport usernameSearch) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.usernameSearch = usernameSearch;
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        int shape = SearchShape.of(condition);
+        UsernameMatch match = SearchShape.usernameMatch(shape);
+        String gram = has(shape, USERNAME) && match == UsernameMatch.CONTAINS
+                ? usernameSearch.selectiveTrigram(condition.getUsername())
+                : null;
+
+        Query query = em.createQuery(jpql(shape, gram != null));
+        if (has(shape, USERNAME)) {
+            bindUsername(query, match, condition.getUsername(), gram);
+        }
+        if (has(shape, TEAM_NAME)) {
+            query.setParameter("teamName", condition.getTeamName());
+        }
+        if (has(shape, AGE_GOE)) {
+            query.setParameter("ageGoe", condition.getAgeGoe());
+        }
+        if (has(shape, AGE_LOE)) {
+            query.setParameter("ageLoe", condition.getAgeLoe());
+        }
+
+        List<?> rows = query.getResultList();
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(PROJECTION.newInstance((Object[]) row));
+        }
+        return result;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private String jpql(int shape, boolean gram) {
+        int slot = gram ? shape + SearchShape.COUNT : shape;
+        String jpql = queries.get(slot);
+        if (jpql != null) {
+            hits.increment();
+            return jpql;
+        }
+        misses.increment();
+        queries.compareAndSet(slot, null, render(shape, gram));
+        return queries.get(slot);
+    }
+
+    private static void bindUsername(Query query, UsernameMatch match, String username, String gram) {
+        switch (match) {
+            case IGNORE_CASE:
+                query.setParameter("username", UsernameKeys.lower(username));
+                break;
+            case PREFIX:
+                String prefix = UsernameKeys.lower(username);
+                query.setParameter("username", prefix);
+                query.setParameter("usernameUpper", UsernameSearchSupport.prefixUpperBound(prefix));
+                break;
+            case CONTAINS:
+                query.setParameter("username", UsernameSearchSupport.containsPattern(username));
+                if (gram != null) {
+                    query.setParameter("usernameGram", gram);
+                }
+                break;
+            default:
+                query.setParameter("username", username);
+        }
+    }
+
+    /**
+     * 조건 값 대신 이름 있는 파라미터(:username 등)를 넣어 JPQL 을 만든다.
+     * teamName 조건이 있으면 inner join 으로 team.name 인덱스부터 조인할 수 있게 한다.
+     */
+    private String render(int shape, boolean gram) {
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(PROJECTION)
+                .from(member);
+        if (has(shape, TEAM_NAME)) {
+            query.join(member.team, team);
+        } else {
+            query.leftJoin(member.team, team);
+        }
+        return query
+                .where(has(shape, USERNAME) ? usernamePredicate(SearchShape.usernameMatch(shape), gram) : null,
+                        has(shape, TEAM_NAME) ? team.name.eq(Expressions.stringTemplate(":teamName")) : null,
+                        has(shape, AGE_GOE) ? member.age.goe(Expressions.numberTemplate(Integer.class, ":ageGoe")) : null,
+                        has(shape, AGE_LOE) ? member.age.loe(Expressions.numberTemplate(Integer.class, ":ageLoe")) : null)
+                .toString();
+    }
+
+    private BooleanExpression usernamePredicate(UsernameMatch match, boolean gram) {
+        StringExpression username = Expressions.stringTemplate(":username");
+        switch (match) {
+            case IGNORE_CASE:
+                return member.usernameLower.eq(username);
+            case PREFIX:
+                return member.usernameLower.goe(username)
+                        .and(member.usernameLower.lt(Expressions.stringTemplate(":usernameUpper")));
+            case CONTAINS:
+                BooleanExpression like = member.usernameLower.like(username, UsernameSearchSupport.LIKE_ESCAPE);
+                return gram
+                        ? member.id.in(usernameSearch.gramMembers(Expressions.stringTemplate(":usernameGram"))).and(like)
+                        : like;
+            default:
+                return member.username.eq(username);
+        }
+    }
+}
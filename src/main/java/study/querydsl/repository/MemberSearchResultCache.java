@@ -0,0 +1,311 @@
+package study.querydsl.repository;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberChange;
+import study.querydsl.entity.MemberChangeHandler;
+import study.querydsl.entity.MemberSnapshot;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 정규화한 MemberSearchCondition 을 키로 search() 결과를 보관하는 LRU + TTL 캐시.
+ * 엔트리 수와 추정 바이트 수 두 가지로 크기를 제한한다.
+ *
+ * 커밋된 값만 담도록 트랜잭션 안의 조회는 캐시를 거치지 않는다.
+ * 커밋된 Member 변경(dirty checking, 삭제 포함)과 team 변경은 MemberChangeHandler 로 받아 해당 엔트리를 지운다.
+ */
+@Component
+public class MemberSearchResultCache implements MemberChangeHandler {
+
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+    private static final long ROW_OVERHEAD_BYTES = 72;
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<MemberSearchCondition, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public MemberSearchResultCache(@Value("${member.search.cache.enabled:true}") boolean enabled,
+                                   @Value("${member.search.cache.max-entries:1000}") int maxEntries,
+                                   @Value("${member.search.cache.max-bytes:67108864}") long maxBytes,
+                                   @Value("${member.search.cache.ttl:30s}") Duration ttl) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public List<MemberTeamDto> get(MemberSearchCondition condition,
+                                   Function<MemberSearchCondition, List<MemberTeamDto>> loader) {
+        // 트랜잭션 안에서 읽은 값은 커밋 전 변경을 담고 있을 수 있다
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loader.apply(condition);
+        }
+        MemberSearchCondition key = normalize(condition);
+        long loadGeneration;
+        synchronized (this) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null && !entry.isExpired(System.nanoTime())) {
+                hits.increment();
+                return entry.result;
+            }
+            if (entry != null) {
+                remove(key);
+                evictions.increment();
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+
+        List<MemberTeamDto> result = Collections.unmodifiableList(loader.apply(key));
+        put(key, result, loadGeneration);
+        return result;
+    }
+
+    /**
+     * 새로 저장된 member 가 결과에 포함될 수 있는 엔트리만 지운다.
+     * 트랜잭션 안이면 트랜잭션이 끝난 뒤(커밋이든 롤백이든) 한 번 더 지워서
+     * 그 사이에 다른 호출이 읽어 둔 값이 남지 않게 한다.
+     */
+    public void invalidate(Member member) {
+        if (!enabled) {
+            return;
+        }
+        String username = member.getUsername();
+        Long teamId = member.getTeam() != null ? member.getTeam().getId() : null;
+        String teamName = member.getTeam() != null ? member.getTeam().getName() : null;
+        int age = member.getAge();
+
+        invalidateMatching(username, teamId, teamName, age);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateMatching(username, teamId, teamName, age);
+                }
+            });
+        }
+    }
+
+    /**
+     * 변경 전후 어느 쪽이든 결과에 포함될 수 있는 엔트리를 지운다.
+     * snapshot 에는 team 이름이 없으므로 teamName 조건은 team 이 있으면 맞는 것으로 본다.
+     */
+    @Override
+    public void onMemberChange(MemberChange change) {
+        if (!enabled) {
+            return;
+        }
+        invalidate(change.getBefore());
+        invalidate(change.getAfter());
+    }
+
+    @Override
+    public void onBulkChange() {
+        evictAll();
+    }
+
+    /**
+     * team 이름이 바뀌면 teamName 조건이 있는 엔트리와 그 team 의 행을 담은 엔트리를 지운다.
+     */
+    @Override
+    public synchronized void onTeamChange(Long teamId) {
+        if (!enabled) {
+            return;
+        }
+        Iterator<Map.Entry<MemberSearchCondition, CacheEntry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<MemberSearchCondition, CacheEntry> entry = it.next();
+            if (entry.getKey().getTeamName() != null || entry.getValue().containsTeam(teamId)) {
+                bytes -= entry.getValue().bytes;
+                it.remove();
+                invalidations.increment();
+            }
+        }
+        generation++;
+    }
+
+    private void invalidate(MemberSnapshot snapshot) {
+        if (snapshot != null) {
+            invalidateMatching(snapshot.getUsername(), snapshot.getTeamId(), null, snapshot.getAge());
+        }
+    }
+
+    /**
+     * 벌크 저장/수정/삭제처럼 어떤 행이 바뀌었는지 알 수 없을 때 사용한다.
+     */
+    public void evictAll() {
+        if (!enabled) {
+            return;
+        }
+        clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    clear();
+                }
+            });
+        }
+    }
+
+    private synchronized void clear() {
+        invalidations.add(entries.size());
+        entries.clear();
+        bytes = 0;
+        generation++;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    private synchronized void put(MemberSearchCondition key, List<MemberTeamDto> result, long loadGeneration) {
+        if (loadGeneration != generation) {
+            return;
+        }
+        long size = estimateBytes(key, result);
+        if (size > maxBytes) {
+            return;
+        }
+        CacheEntry previous = entries.put(key, new CacheEntry(result, size, System.nanoTime() + ttlNanos));
+        if (previous != null) {
+            bytes -= previous.bytes;
+        }
+        bytes += size;
+
+        Iterator<CacheEntry> eldest = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+            bytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private synchronized void invalidateMatching(String username, Long teamId, String teamName, int age) {
+        Iterator<Map.Entry<MemberSearchCondition, CacheEntry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<MemberSearchCondition, CacheEntry> entry = it.next();
+            if (matches(entry.getKey(), username, teamId, teamName, age)) {
+                bytes -= entry.getValue().bytes;
+                it.remove();
+                invalidations.increment();
+            }
+        }
+        generation++;
+    }
+
+    private void remove(MemberSearchCondition key) {
+        CacheEntry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.bytes;
+        }
+    }
+
+    /**
+     * teamName 을 모르면(null) team 이 있는 member 는 모든 teamName 조건에 맞는 것으로 본다.
+     */
+    private static boolean matches(MemberSearchCondition key, String username, Long teamId, String teamName, int age) {
+        return (key.getUsername() == null
+                || UsernameMatch.orDefault(key.getUsernameMatch()).matches(key.getUsername(), username))
+                && (key.getTeamName() == null
+                    || (teamName != null ? key.getTeamName().equals(teamName) : teamId != null))
+                && (key.getAgeGoe() == null || age >= key.getAgeGoe())
+                && (key.getAgeLoe() == null || age <= key.getAgeLoe());
+    }
+
+    /**
+     * 빈 문자열은 조건이 없는 것과 같으므로 null 로 맞춘다.
+     * usernameMatch 는 username 이 있을 때만 의미가 있고, null 은 EXACT 로 맞춘다.
+     */
+    static MemberSearchCondition normalize(MemberSearchCondition condition) {
+        MemberSearchCondition key = new MemberSearchCondition();
+        key.setUsername(hasText(condition.getUsername()) ? condition.getUsername() : null);
+        key.setUsernameMatch(key.getUsername() != null ? UsernameMatch.orDefault(condition.getUsernameMatch()) : null);
+        key.setTeamName(hasText(condition.getTeamName()) ? condition.getTeamName() : null);
+        key.setAgeGoe(condition.getAgeGoe());
+        key.setAgeLoe(condition.getAgeLoe());
+        return key;
+    }
+
+    private static long estimateBytes(MemberSearchCondition key, List<MemberTeamDto> result) {
+        long size = ENTRY_OVERHEAD_BYTES + stringBytes(key.getUsername()) + stringBytes(key.getTeamName());
+        for (MemberTeamDto dto : result) {
+            size += ROW_OVERHEAD_BYTES + stringBytes(dto.getUsername()) + stringBytes(dto.getTeamName());
+        }
+        return size;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 40 + value.length() * 2L;
+    }
+
+    private static class CacheEntry {
+        private final List<MemberTeamDto> result;
+        private final long bytes;
+        private final long expiresAt;
+
+        CacheEntry(List<MemberTeamDto> result, long bytes, long expiresAt) {
+            this.result = result;
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt > 0;
+        }
+
+        boolean containsTeam(Long teamId) {
+            for (MemberTeamDto dto : result) {
+                if (teamId.equals(dto.getTeamId())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
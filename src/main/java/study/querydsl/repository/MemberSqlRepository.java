@@ -0,0 +1,129 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.DtoProjections;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+import study.querydsl.entity.UsernameKeys;
+
+import static com.querydsl.core.group.GroupBy.groupBy;
+import static com.querydsl.core.group.GroupBy.list;
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.SMemberUsernameTrigram.memberUsernameTrigram;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * 엔티티를 거치지 않는 읽기 전용 조회. SQL 을 직접 실행하므로
+ * 같은 트랜잭션에서 flush 되지 않은 엔티티 변경은 보이지 않는다.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class MemberSqlRepository {
+
+    private static final PathBuilder<Object> RANKED = new PathBuilder<>(Object.class, "ranked");
+    private static final NumberPath<Long> ROW_NUMBER = Expressions.numberPath(Long.class, "rn");
+
+    private final SQLQueryFactory sqlQueryFactory;
+    private final UsernameSearchSupport usernameSearch;
+
+    public MemberSqlRepository(SQLQueryFactory sqlQueryFactory, UsernameSearchSupport usernameSearch) {
+        this.sqlQueryFactory = sqlQueryFactory;
+        this.usernameSearch = usernameSearch;
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        SQLQuery<MemberTeamDto> query = sqlQueryFactory
+                .select(DtoProjections.memberTeamDto(
+                        member.memberId,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            query.join(team).on(member.teamId.eq(team.id));
+        } else {
+            query.leftJoin(team).on(member.teamId.eq(team.id));
+        }
+        return query
+                .where(usernameMatches(condition.getUsername(), condition.getUsernameMatch()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .fetch();
+    }
+
+    /**
+     * team 마다 member.id 순으로 앞에서 limit 명까지. row_number() 로 DB 에서 자르므로
+     * 읽는 행 수가 team 크기가 아니라 teamIds 수 * limit 를 넘지 않는다.
+     */
+    public Map<Long, List<MemberDto>> findFirstMembersByTeam(Collection<Long> teamIds, int limit) {
+        return sqlQueryFactory
+                .from(SQLExpressions
+                        .select(member.teamId, member.memberId, member.username, member.age,
+                                SQLExpressions.rowNumber().over()
+                                        .partitionBy(member.teamId)
+                                        .orderBy(member.memberId.asc())
+                                        .as(ROW_NUMBER))
+                        .from(member)
+                        .where(member.teamId.in(teamIds)), RANKED)
+                .where(RANKED.getNumber("rn", Long.class).loe((long) limit))
+                .orderBy(RANKED.getNumber("member_id", Long.class).asc())
+                .transform(groupBy(RANKED.getNumber("team_id", Long.class)).as(list(DtoProjections.memberDto(
+                        RANKED.getString("username"),
+                        RANKED.getNumber("age", Integer.class)))));
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    /**
+     * UsernameSearchSupport.predicate 와 같은 조건을 SQL 로 쓴다.
+     */
+    private BooleanExpression usernameMatches(String username, UsernameMatch match) {
+        if (!hasText(username)) {
+            return null;
+        }
+        switch (UsernameMatch.orDefault(match)) {
+            case IGNORE_CASE:
+                return member.usernameLower.eq(UsernameKeys.lower(username));
+            case PREFIX:
+                String prefix = UsernameKeys.lower(username);
+                return member.usernameLower.goe(prefix)
+                        .and(member.usernameLower.lt(UsernameSearchSupport.prefixUpperBound(prefix)));
+            case CONTAINS:
+                BooleanExpression like = member.usernameLower.like(
+                        UsernameSearchSupport.containsPattern(username), UsernameSearchSupport.LIKE_ESCAPE);
+                String gram = usernameSearch.selectiveTrigram(username);
+                return gram != null ? member.memberId.in(SQLExpressions
+                        .select(memberUsernameTrigram.memberId)
+                        .from(memberUsernameTrigram)
+                        .where(memberUsernameTrigram.trigram.eq(gram))).and(like) : like;
+            default:
+                return member.username.eq(username);
+        }
+    }
+}
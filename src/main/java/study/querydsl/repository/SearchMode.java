@@ -0,0 +1,13 @@
+package study.querydsl.repository;
+
+/**
+ * search() 를 어떤 경로로 실행할지. member.search.mode 로 기본값을 정한다.
+ */
+public enum SearchMode {
+    /** JPQL + Hibernate */
+    JPA,
+    /** querydsl-sql 로 JDBC 결과를 바로 DTO 로 매핑 */
+    SQL,
+    /** DB 를 거치지 않고 MemberColumnStore 에서 조회. 저장소가 꺼져 있거나 아직 읽기 전이면 JPA 로 조회한다 */
+    MEMORY
+}
@@ -0,0 +1,84 @@
+package study.querydsl.repository;
+
+import java.util.Locale;
+import java.util.StringJoiner;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.UsernameMatch;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberSearchCondition 에 어떤 조건이 들어있는지를 비트마스크로 표현한다.
+ * username 조건이 있으면 비교 방식(UsernameMatch.ordinal())을 4~5번 비트에 담는다.
+ */
+public final class SearchShape {
+
+    public static final int USERNAME = 1;
+    public static final int TEAM_NAME = 1 << 1;
+    public static final int AGE_GOE = 1 << 2;
+    public static final int AGE_LOE = 1 << 3;
+
+    public static final int USERNAME_MATCH_SHIFT = 4;
+    public static final int USERNAME_MATCH_MASK = 3 << USERNAME_MATCH_SHIFT;
+
+    public static final int COUNT = 1 << 6;
+
+    private SearchShape() {
+    }
+
+    public static int of(MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) {
+            shape |= USERNAME | UsernameMatch.orDefault(condition.getUsernameMatch()).ordinal() << USERNAME_MATCH_SHIFT;
+        }
+        if (hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
+
+    public static boolean has(int shape, int flag) {
+        return (shape & flag) != 0;
+    }
+
+    public static UsernameMatch usernameMatch(int shape) {
+        return UsernameMatch.values()[(shape & USERNAME_MATCH_MASK) >>> USERNAME_MATCH_SHIFT];
+    }
+
+    /**
+     * username 조건 없이 비교 방식 비트만 있는 값은 of() 가 만들지 않는다.
+     */
+    public static boolean isValid(int shape) {
+        return has(shape, USERNAME) || (shape & USERNAME_MATCH_MASK) == 0;
+    }
+
+    /**
+     * 태그나 로그에 쓰기 위한 이름. 예) "username+teamName", "username:prefix+ageGoe", 조건이 없으면 "none"
+     */
+    public static String describe(int shape) {
+        if (shape == 0) {
+            return "none";
+        }
+        StringJoiner joiner = new StringJoiner("+");
+        if (has(shape, USERNAME)) {
+            UsernameMatch match = usernameMatch(shape);
+            joiner.add(match == UsernameMatch.EXACT ? "username" : "username:" + match.name().toLowerCase(Locale.ROOT));
+        }
+        if (has(shape, TEAM_NAME)) {
+            joiner.add("teamName");
+        }
+        if (has(shape, AGE_GOE)) {
+            joiner.add("ageGoe");
+        }
+        if (has(shape, AGE_LOE)) {
+            joiner.add("ageLoe");
+        }
+        return joiner.toString();
+    }
+}
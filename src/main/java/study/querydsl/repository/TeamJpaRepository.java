@@ -0,0 +1,106 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.entity.Team;
+
+import static study.querydsl.entity.QTeam.team;
+
+@Repository
+public class TeamJpaRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final MemberSqlRepository memberSqlRepository;
+    private final int maxMembersPerTeam;
+
+    public TeamJpaRepository(EntityManager em, JPAQueryFactory queryFactory,
+                             MemberSqlRepository memberSqlRepository,
+                             @Value("${team.page.max-members:100}") int maxMembersPerTeam) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.memberSqlRepository = memberSqlRepository;
+        this.maxMembersPerTeam = maxMembersPerTeam;
+    }
+
+    public void save(Team team) {
+        em.persist(team);
+    }
+
+    /**
+     * team 한 페이지와 그 members 를 members 컬렉션 배치 로딩(@BatchSize(100)) 으로 N+1 없이 가져온다.
+     * 페이지 크기가 100 이하면 team 조회 1번 + members 조회 1번이다.
+     */
+    @Transactional(readOnly = true)
+    public List<Team> findAllWithMembers(Pageable pageable) {
+        List<Team> teams = queryFactory
+                .selectFrom(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+        for (Team t : teams) {
+            Hibernate.initialize(t.getMembers());
+        }
+        return teams;
+    }
+
+    /**
+     * 컬렉션 페치 조인 + 페이징은 메모리에서 페이징하므로 두 단계로 나눈다.
+     * 1) team 만 페이징해서 id 를 구하고 2) 그 id 에 속한 member 를 team 마다 max-members 명까지만 조회해 묶는다.
+     * 읽는 member 는 페이지 크기 * (max-members + 1) 행을 넘지 않는다. 더 있으면 moreMembers 가 true 다.
+     * member 조회는 SQL 로 하므로 flush 되지 않은 변경은 보이지 않는다.
+     */
+    @Transactional(readOnly = true)
+    public Page<TeamMembersDto> findTeamsWithMembers(Pageable pageable) {
+        List<Tuple> teamRows = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        List<Long> teamIds = teamRows.stream()
+                .map(row -> row.get(team.id))
+                .collect(Collectors.toList());
+
+        // 하나 더 읽어서 잘렸는지 안다
+        Map<Long, List<MemberDto>> membersByTeam = teamIds.isEmpty()
+                ? Collections.emptyMap()
+                : memberSqlRepository.findFirstMembersByTeam(teamIds, maxMembersPerTeam + 1);
+
+        List<TeamMembersDto> content = teamRows.stream()
+                .map(row -> {
+                    List<MemberDto> members = membersByTeam.getOrDefault(row.get(team.id), Collections.emptyList());
+                    boolean moreMembers = members.size() > maxMembersPerTeam;
+                    return new TeamMembersDto(
+                            row.get(team.id),
+                            row.get(team.name),
+                            moreMembers ? new ArrayList<>(members.subList(0, maxMembersPerTeam)) : members,
+                            moreMembers);
+                })
+                .collect(Collectors.toList());
+
+        JPAQuery<Long> countQuery = queryFactory
+                .select(team.count())
+                .from(team);
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+}
@@ -0,0 +1,235 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.TeamStatisticsDto;
+import study.querydsl.entity.MemberChange;
+import study.querydsl.entity.MemberChangeHandler;
+import study.querydsl.entity.MemberSnapshot;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * team 별 member 수, 나이 합/최대/최소를 메모리에 유지한다.
+ * 커밋된 Member 변경으로 증분 갱신하고, 주기적으로 DB 에서 전체를 다시 집계해 맞춘다.
+ *
+ * count/sum 은 빼기로 되돌릴 수 있지만 최대/최소 값을 가진 member 가 빠지면 새 값을 알 수 없으므로
+ * 그 team 은 dirty 로 표시해 두고 다음 조회 때 그 team 만 다시 집계한다.
+ *
+ * 변경은 DB 커밋 뒤에 전달되므로, 커밋은 reconcile() 의 집계 쿼리 전에 끝났는데 전달은 reset 뒤에 오면
+ * 그 행이 두 번 반영된다. 이 차이는 다음 reconcile() 까지 남는다.
+ */
+@Slf4j
+@Repository
+public class TeamStatisticsRepository implements MemberChangeHandler {
+
+    private final JPAQueryFactory queryFactory;
+    private final ConcurrentHashMap<Long, TeamAggregate> aggregates = new ConcurrentHashMap<>();
+
+    public TeamStatisticsRepository(JPAQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+
+    /**
+     * member 가 있는 team 만 이름순으로 돌려준다. member 테이블은 dirty team 이 있을 때만 읽는다.
+     */
+    public List<TeamStatisticsDto> findAll() {
+        refreshDirty();
+
+        Map<Long, String> teamNames = new HashMap<>();
+        for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+            teamNames.put(row.get(team.id), row.get(team.name));
+        }
+
+        List<TeamStatisticsDto> result = new ArrayList<>();
+        aggregates.forEach((teamId, aggregate) -> {
+            TeamStatisticsDto dto = aggregate.toDto(teamId, teamNames.get(teamId));
+            if (dto.getCount() > 0) {
+                result.add(dto);
+            }
+        });
+        result.sort(Comparator.comparing(TeamStatisticsDto::getTeamName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    @Override
+    public void onMemberChange(MemberChange change) {
+        MemberSnapshot before = change.getBefore();
+        MemberSnapshot after = change.getAfter();
+        if (before != null && after != null
+                && before.getAge() == after.getAge()
+                && Objects.equals(before.getTeamId(), after.getTeamId())) {
+            return;
+        }
+        if (before != null && before.getTeamId() != null) {
+            aggregate(before.getTeamId()).remove(before.getAge());
+        }
+        if (after != null && after.getTeamId() != null) {
+            aggregate(after.getTeamId()).add(after.getAge());
+        }
+    }
+
+    @Override
+    public void onBulkChange() {
+        reconcile();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcile();
+    }
+
+    /**
+     * 집계하는 동안 바뀐 team 은 결과를 믿을 수 없으므로 덮어쓰지 않고 dirty 로 남긴다.
+     */
+    @Scheduled(fixedDelayString = "${team.statistics.reconcile-interval:300000}",
+            initialDelayString = "${team.statistics.reconcile-interval:300000}")
+    public void reconcile() {
+        long start = System.nanoTime();
+        Map<Long, Long> versions = new HashMap<>();
+        aggregates.forEach((teamId, aggregate) -> versions.put(teamId, aggregate.version()));
+
+        List<Tuple> rows = queryFactory
+                .select(member.team.id, member.count(), member.age.sum(), member.age.max(), member.age.min())
+                .from(member)
+                .where(member.team.isNotNull())
+                .groupBy(member.team.id)
+                .fetch();
+
+        Set<Long> seen = new HashSet<>();
+        int drifted = 0;
+        for (Tuple row : rows) {
+            Long teamId = row.get(0, Long.class);
+            seen.add(teamId);
+            if (aggregate(teamId).reset(versions.getOrDefault(teamId, 0L),
+                    row.get(1, Number.class).longValue(), row.get(2, Number.class).longValue(),
+                    row.get(3, Number.class).intValue(), row.get(4, Number.class).intValue())) {
+                drifted++;
+            }
+        }
+        for (Map.Entry<Long, TeamAggregate> entry : aggregates.entrySet()) {
+            if (!seen.contains(entry.getKey())
+                    && entry.getValue().reset(versions.getOrDefault(entry.getKey(), 0L), 0, 0, 0, 0)) {
+                drifted++;
+            }
+        }
+        log.info("team statistics reconciled: {} teams, {} drifted ({} ms)",
+                rows.size(), drifted, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void refreshDirty() {
+        Map<Long, Long> versions = new HashMap<>();
+        aggregates.forEach((teamId, aggregate) -> {
+            if (aggregate.isDirty()) {
+                versions.put(teamId, aggregate.version());
+            }
+        });
+        if (versions.isEmpty()) {
+            return;
+        }
+
+        List<Tuple> rows = queryFactory
+                .select(member.team.id, member.count(), member.age.sum(), member.age.max(), member.age.min())
+                .from(member)
+                .where(member.team.id.in(versions.keySet()))
+                .groupBy(member.team.id)
+                .fetch();
+
+        Set<Long> seen = new HashSet<>();
+        for (Tuple row : rows) {
+            Long teamId = row.get(0, Long.class);
+            seen.add(teamId);
+            aggregate(teamId).reset(versions.get(teamId),
+                    row.get(1, Number.class).longValue(), row.get(2, Number.class).longValue(),
+                    row.get(3, Number.class).intValue(), row.get(4, Number.class).intValue());
+        }
+        versions.forEach((teamId, version) -> {
+            if (!seen.contains(teamId)) {
+                aggregate(teamId).reset(version, 0, 0, 0, 0);
+            }
+        });
+    }
+
+    private TeamAggregate aggregate(Long teamId) {
+        return aggregates.computeIfAbsent(teamId, id -> new TeamAggregate());
+    }
+
+    private static class TeamAggregate {
+        private long count;
+        private long sum;
+        private int max = Integer.MIN_VALUE;
+        private int min = Integer.MAX_VALUE;
+        private boolean dirty;
+        private long version;
+
+        synchronized void add(int age) {
+            count++;
+            sum += age;
+            max = Math.max(max, age);
+            min = Math.min(min, age);
+            version++;
+        }
+
+        synchronized void remove(int age) {
+            count--;
+            sum -= age;
+            if (count <= 0) {
+                count = 0;
+                sum = 0;
+                max = Integer.MIN_VALUE;
+                min = Integer.MAX_VALUE;
+            } else if (age >= max || age <= min) {
+                dirty = true;
+            }
+            version++;
+        }
+
+        /**
+         * 집계를 시작한 뒤 변경이 있었으면 덮어쓰지 않고 dirty 로 둔다.
+         *
+         * @return 메모리 값이 DB 와 달랐으면 true
+         */
+        synchronized boolean reset(long expectedVersion, long count, long sum, int max, int min) {
+            if (version != expectedVersion) {
+                dirty = true;
+                return false;
+            }
+            boolean drifted = this.count != count || this.sum != sum
+                    || (count > 0 && (this.max != max || this.min != min));
+            this.count = count;
+            this.sum = sum;
+            this.max = count > 0 ? max : Integer.MIN_VALUE;
+            this.min = count > 0 ? min : Integer.MAX_VALUE;
+            this.dirty = false;
+            return drifted;
+        }
+
+        synchronized boolean isDirty() {
+            return dirty;
+        }
+
+        synchronized long version() {
+            return version;
+        }
+
+        synchronized TeamStatisticsDto toDto(Long teamId, String teamName) {
+            return new TeamStatisticsDto(teamId, teamName, count, sum,
+                    count > 0 ? max : 0, count > 0 ? min : 0);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.core.types.dsl.Wildcard;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQueryFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.UsernameMatch;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.UsernameKeys;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.sql.SMemberUsernameTrigram.memberUsernameTrigram;
+
+/**
+ * UsernameMatch 별 username 조건.
+ *
+ * IGNORE_CASE, PREFIX 는 username_lower 인덱스를 쓴다. H2 는 함수 인덱스가 없으므로 lower(username) 을 컬럼으로 저장한다.
+ * CONTAINS 는 member_username_trigram 인덱스로 후보 member 를 먼저 구하고 username_lower like 로 확인한다.
+ * 모든 trigram 을 교집합하면 흔한 trigram(예: "mem") 때문에 거의 전체를 읽게 되므로,
+ * 각 trigram 이 나오는 member 수를 probe-limit 까지만 세어 가장 드문 하나만 쓴다.
+ * 세는 쿼리는 count(*) from (... limit probe-limit) 라서 id 를 가져오지 않고, 한 트랜잭션(커넥션)에서 실행한다.
+ */
+@Component
+public class UsernameSearchSupport {
+
+    static final char LIKE_ESCAPE = '!';
+
+    private static final QMember GRAM_MEMBER = new QMember("gramMember");
+    private static final StringPath GRAM = Expressions.stringPath("gram");
+    private static final PathBuilder<Object> PROBE = new PathBuilder<>(Object.class, "probe");
+
+    private final SQLQueryFactory sqlQueryFactory;
+    private final TransactionTemplate probeTransaction;
+    private final int probeLimit;
+    private final int maxProbes;
+
+    public UsernameSearchSupport(SQLQueryFactory sqlQueryFactory,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${member.search.trigram.probe-limit:1000}") int probeLimit,
+                                 @Value("${member.search.trigram.max-probes:8}") int maxProbes) {
+        this.sqlQueryFactory = sqlQueryFactory;
+        // SQLQueryFactory 는 트랜잭션 커넥션이 필요하다. 호출자 트랜잭션이 있으면 거기에 참여한다
+        this.probeTransaction = new TransactionTemplate(transactionManager);
+        this.probeTransaction.setReadOnly(true);
+        this.probeLimit = probeLimit;
+        this.maxProbes = maxProbes;
+    }
+
+    /**
+     * QMember.member 기준 username 조건. username 이 비어 있으면 null.
+     */
+    public BooleanExpression predicate(String username, UsernameMatch match) {
+        if (!hasText(username)) {
+            return null;
+        }
+        switch (UsernameMatch.orDefault(match)) {
+            case IGNORE_CASE:
+                return member.usernameLower.eq(UsernameKeys.lower(username));
+            case PREFIX:
+                String prefix = UsernameKeys.lower(username);
+                return member.usernameLower.goe(prefix).and(member.usernameLower.lt(prefixUpperBound(prefix)));
+            case CONTAINS:
+                BooleanExpression like = member.usernameLower.like(containsPattern(username), LIKE_ESCAPE);
+                String gram = selectiveTrigram(username);
+                return gram != null ? member.id.in(gramMembers(Expressions.constant(gram))).and(like) : like;
+            default:
+                return member.username.eq(username);
+        }
+    }
+
+    /**
+     * gram 이 들어간 username 을 가진 member id 서브쿼리
+     */
+    JPQLQuery<Long> gramMembers(Expression<String> gram) {
+        return JPAExpressions
+                .select(GRAM_MEMBER.id)
+                .from(GRAM_MEMBER)
+                .join(GRAM_MEMBER.usernameTrigrams, GRAM)
+                .where(GRAM.eq(gram));
+    }
+
+    /**
+     * pattern 의 trigram 중 나오는 member 가 가장 적은 것. 3글자보다 짧으면 null.
+     * 각 trigram 은 probe-limit 건까지만 읽고, 앞에서부터 고르게 max-probes 개까지만 확인한다.
+     */
+    public String selectiveTrigram(String pattern) {
+        List<String> grams = new ArrayList<>(UsernameKeys.trigrams(pattern));
+        if (grams.isEmpty()) {
+            return null;
+        }
+        if (grams.size() == 1) {
+            return grams.get(0);
+        }
+
+        return probeTransaction.execute(status -> {
+            String best = null;
+            long bestCount = Long.MAX_VALUE;
+            int probes = Math.min(maxProbes, grams.size());
+            for (int i = 0; i < probes; i++) {
+                String gram = grams.get(probes == 1 ? 0 : i * (grams.size() - 1) / (probes - 1));
+                long count = countUpToLimit(gram);
+                if (count < bestCount) {
+                    best = gram;
+                    bestCount = count;
+                }
+                if (count == 0) {
+                    break;
+                }
+            }
+            return best;
+        });
+    }
+
+    /**
+     * gram 이 나오는 member 수. probe-limit 보다 많으면 probe-limit.
+     */
+    private long countUpToLimit(String gram) {
+        Long count = sqlQueryFactory
+                .select(Wildcard.count)
+                .from(SQLExpressions
+                        .select(memberUsernameTrigram.memberId)
+                        .from(memberUsernameTrigram)
+                        .where(memberUsernameTrigram.trigram.eq(gram))
+                        .limit(probeLimit), PROBE)
+                .fetchOne();
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 대소문자 무시 부분 문자열 like 패턴. %, _ 는 LIKE_ESCAPE 로 이스케이프한다.
+     */
+    static String containsPattern(String username) {
+        return "%" + escapeLike(UsernameKeys.lower(username)) + "%";
+    }
+
+    /**
+     * prefix 로 시작하는 문자열 s 는 모두 prefix <= s < prefixUpperBound(prefix) 를 만족한다.
+     */
+    static String prefixUpperBound(String prefix) {
+        int end = prefix.length();
+        while (end > 0 && prefix.charAt(end - 1) == Character.MAX_VALUE) {
+            end--;
+        }
+        if (end == 0) {
+            return prefix + Character.MAX_VALUE;
+        }
+        return prefix.substring(0, end - 1) + (char) (prefix.charAt(end - 1) + 1);
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 4);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+                sb.append(LIKE_ESCAPE);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
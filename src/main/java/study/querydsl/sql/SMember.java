@@ -0,0 +1,74 @@
+package study.querydsl.sql;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.Path;
+
+import com.querydsl.sql.ColumnMetadata;
+import java.sql.Types;
+
+
+
+
+/**
+ * SMember is a Querydsl query type for SMember
+ *
+ * querydsl-sql 코드 생성 결과와 같은 모양으로 손으로 관리한다. 엔티티 매핑이 바뀌면 함께 고친다.
+ */
+public class SMember extends com.querydsl.sql.RelationalPathBase<SMember> {
+
+    private static final long serialVersionUID = -1454011370L;
+
+    public static final SMember member = new SMember("MEMBER");
+
+    public final NumberPath<Integer> age = createNumber("age", Integer.class);
+
+    public final NumberPath<Long> memberId = createNumber("memberId", Long.class);
+
+    public final NumberPath<Long> teamId = createNumber("teamId", Long.class);
+
+    public final StringPath username = createString("username");
+
+    public final StringPath usernameLower = createString("usernameLower");
+
+    public final com.querydsl.sql.PrimaryKey<SMember> constraint8 = createPrimaryKey(memberId);
+
+    public final com.querydsl.sql.ForeignKey<STeam> fk1 = createForeignKey(teamId, "ID");
+
+    public SMember(String variable) {
+        super(SMember.class, forVariable(variable), "PUBLIC", "MEMBER");
+        addMetadata();
+    }
+
+    public SMember(String variable, String schema, String table) {
+        super(SMember.class, forVariable(variable), schema, table);
+        addMetadata();
+    }
+
+    public SMember(String variable, String schema) {
+        super(SMember.class, forVariable(variable), schema, "MEMBER");
+        addMetadata();
+    }
+
+    public SMember(Path<? extends SMember> path) {
+        super(path.getType(), path.getMetadata(), "PUBLIC", "MEMBER");
+        addMetadata();
+    }
+
+    public SMember(PathMetadata metadata) {
+        super(SMember.class, metadata, "PUBLIC", "MEMBER");
+        addMetadata();
+    }
+
+    public void addMetadata() {
+        addMetadata(age, ColumnMetadata.named("AGE").withIndex(2).ofType(Types.INTEGER).withSize(10).notNull());
+        addMetadata(memberId, ColumnMetadata.named("MEMBER_ID").withIndex(1).ofType(Types.BIGINT).withSize(19).notNull());
+        addMetadata(teamId, ColumnMetadata.named("TEAM_ID").withIndex(5).ofType(Types.BIGINT).withSize(19));
+        addMetadata(username, ColumnMetadata.named("USERNAME").withIndex(3).ofType(Types.VARCHAR).withSize(255));
+        addMetadata(usernameLower, ColumnMetadata.named("USERNAME_LOWER").withIndex(4).ofType(Types.VARCHAR).withSize(255));
+    }
+
+}
@@ -0,0 +1,63 @@
+package study.querydsl.sql;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.Path;
+
+import com.querydsl.sql.ColumnMetadata;
+import java.sql.Types;
+
+
+
+
+/**
+ * SMemberUsernameTrigram is a Querydsl query type for SMemberUsernameTrigram
+ *
+ * querydsl-sql 코드 생성 결과와 같은 모양으로 손으로 관리한다. 엔티티 매핑이 바뀌면 함께 고친다.
+ */
+public class SMemberUsernameTrigram extends com.querydsl.sql.RelationalPathBase<SMemberUsernameTrigram> {
+
+    private static final long serialVersionUID = 1923410584L;
+
+    public static final SMemberUsernameTrigram memberUsernameTrigram = new SMemberUsernameTrigram("MEMBER_USERNAME_TRIGRAM");
+
+    public final NumberPath<Long> memberId = createNumber("memberId", Long.class);
+
+    public final StringPath trigram = createString("trigram");
+
+    public final com.querydsl.sql.ForeignKey<SMember> fk2 = createForeignKey(memberId, "MEMBER_ID");
+
+    public SMemberUsernameTrigram(String variable) {
+        super(SMemberUsernameTrigram.class, forVariable(variable), "PUBLIC", "MEMBER_USERNAME_TRIGRAM");
+        addMetadata();
+    }
+
+    public SMemberUsernameTrigram(String variable, String schema, String table) {
+        super(SMemberUsernameTrigram.class, forVariable(variable), schema, table);
+        addMetadata();
+    }
+
+    public SMemberUsernameTrigram(String variable, String schema) {
+        super(SMemberUsernameTrigram.class, forVariable(variable), schema, "MEMBER_USERNAME_TRIGRAM");
+        addMetadata();
+    }
+
+    public SMemberUsernameTrigram(Path<? extends SMemberUsernameTrigram> path) {
+        super(path.getType(), path.getMetadata(), "PUBLIC", "MEMBER_USERNAME_TRIGRAM");
+        addMetadata();
+    }
+
+    public SMemberUsernameTrigram(PathMetadata metadata) {
+        super(SMemberUsernameTrigram.class, metadata, "PUBLIC", "MEMBER_USERNAME_TRIGRAM");
+        addMetadata();
+    }
+
+    public void addMetadata() {
+        addMetadata(memberId, ColumnMetadata.named("MEMBER_ID").withIndex(1).ofType(Types.BIGINT).withSize(19).notNull());
+        addMetadata(trigram, ColumnMetadata.named("TRIGRAM").withIndex(2).ofType(Types.VARCHAR).withSize(3));
+    }
+
+}
@@ -0,0 +1,65 @@
+package study.querydsl.sql;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.Path;
+
+import com.querydsl.sql.ColumnMetadata;
+import java.sql.Types;
+
+
+
+
+/**
+ * STeam is a Querydsl query type for STeam
+ *
+ * querydsl-sql 코드 생성 결과와 같은 모양으로 손으로 관리한다. 엔티티 매핑이 바뀌면 함께 고친다.
+ */
+public class STeam extends com.querydsl.sql.RelationalPathBase<STeam> {
+
+    private static final long serialVersionUID = 1093207823L;
+
+    public static final STeam team = new STeam("TEAM");
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    public final StringPath name = createString("name");
+
+    public final com.querydsl.sql.PrimaryKey<STeam> constraint27 = createPrimaryKey(id);
+
+    public final com.querydsl.sql.ForeignKey<SMember> _fk1Inv = createInvForeignKey(id, "TEAM_ID");
+
+    public STeam(String variable) {
+        super(STeam.class, forVariable(variable), "PUBLIC", "TEAM");
+        addMetadata();
+    }
+
+    public STeam(String variable, String schema, String table) {
+        super(STeam.class, forVariable(variable), schema, table);
+        addMetadata();
+    }
+
+    public STeam(String variable, String schema) {
+        super(STeam.class, forVariable(variable), schema, "TEAM");
+        addMetadata();
+    }
+
+    public STeam(Path<? extends STeam> path) {
+        super(path.getType(), path.getMetadata(), "PUBLIC", "TEAM");
+        addMetadata();
+    }
+
+    public STeam(PathMetadata metadata) {
+        super(STeam.class, metadata, "PUBLIC", "TEAM");
+        addMetadata();
+    }
+
+    public void addMetadata() {
+        addMetadata(id, ColumnMetadata.named("ID").withIndex(1).ofType(Types.BIGINT).withSize(19).notNull());
+        addMetadata(name, ColumnMetadata.named("NAME").withIndex(2).ofType(Types.VARCHAR).withSize(255));
+    }
+
+}
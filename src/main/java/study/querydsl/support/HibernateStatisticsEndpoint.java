@@ -0,0 +1,144 @@
+package study.querydsl.support;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.CollectionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate Statistics 조회용 actuator endpoint(/actuator/hibernatestatistics). DELETE 로 통계를 초기화한다.
+ * hibernate.generate_statistics=true 일 때만 값이 쌓이며, 통계 수집과 웹 노출은 local 프로필에서만 켠다.
+ * 실행된 HQL 이 그대로 보이므로 운영에서는 노출하지 않는다.
+ */
+@Component
+@Endpoint(id = "hibernatestatistics")
+public class HibernateStatisticsEndpoint {
+
+    private final Statistics statistics;
+
+    public HibernateStatisticsEndpoint(EntityManagerFactory emf) {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", statistics.isStatisticsEnabled());
+        result.put("startTime", statistics.getStartTime());
+        result.put("session", session());
+        result.put("entities", entities());
+        result.put("collections", collections());
+        result.put("queries", queries());
+        result.put("secondLevelCache", secondLevelCache());
+        result.put("queryCache", ratio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()));
+        result.put("queryPlanCache", ratio(statistics.getQueryPlanCacheHitCount(), statistics.getQueryPlanCacheMissCount()));
+        return result;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statistics.clear();
+    }
+
+    private Map<String, Object> session() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sessionOpenCount", statistics.getSessionOpenCount());
+        result.put("connectCount", statistics.getConnectCount());
+        result.put("prepareStatementCount", statistics.getPrepareStatementCount());
+        result.put("flushCount", statistics.getFlushCount());
+        result.put("transactionCount", statistics.getTransactionCount());
+        return result;
+    }
+
+    private Map<String, Object> entities() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String entityName : statistics.getEntityNames()) {
+            EntityStatistics entity = statistics.getEntityStatistics(entityName);
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("loadCount", entity.getLoadCount());
+            values.put("fetchCount", entity.getFetchCount());
+            values.put("insertCount", entity.getInsertCount());
+            values.put("updateCount", entity.getUpdateCount());
+            values.put("deleteCount", entity.getDeleteCount());
+            result.put(simpleName(entityName), values);
+        }
+        return result;
+    }
+
+    private Map<String, Object> collections() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String role : statistics.getCollectionRoleNames()) {
+            CollectionStatistics collection = statistics.getCollectionStatistics(role);
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("loadCount", collection.getLoadCount());
+            values.put("fetchCount", collection.getFetchCount());
+            values.put("recreateCount", collection.getRecreateCount());
+            values.put("updateCount", collection.getUpdateCount());
+            result.put(simpleName(role), values);
+        }
+        return result;
+    }
+
+    /**
+     * 실행 횟수가 많은 쿼리부터 정렬한다.
+     */
+    private List<Map<String, Object>> queries() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (String query : statistics.getQueries()) {
+            QueryStatistics stats = statistics.getQueryStatistics(query);
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("query", query);
+            values.put("executionCount", stats.getExecutionCount());
+            values.put("executionRowCount", stats.getExecutionRowCount());
+            values.put("executionAvgTime", stats.getExecutionAvgTime());
+            values.put("executionMaxTime", stats.getExecutionMaxTime());
+            values.put("executionMinTime", stats.getExecutionMinTime());
+            result.add(values);
+        }
+        result.sort(Comparator.comparing((Map<String, Object> values) -> (Long) values.get("executionCount")).reversed());
+        return result;
+    }
+
+    private Map<String, Object> secondLevelCache() {
+        Map<String, Object> result = ratio(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount());
+        result.put("putCount", statistics.getSecondLevelCachePutCount());
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> values = ratio(region.getHitCount(), region.getMissCount());
+            values.put("putCount", region.getPutCount());
+            values.put("elementCountInMemory", region.getElementCountInMemory());
+            regions.put(simpleName(regionName), values);
+        }
+        result.put("regions", regions);
+        return result;
+    }
+
+    private static Map<String, Object> ratio(long hits, long misses) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hitCount", hits);
+        result.put("missCount", misses);
+        result.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return result;
+    }
+
+    private static String simpleName(String name) {
+        return name.startsWith("study.querydsl.entity.") ? name.substring("study.querydsl.entity.".length()) : name;
+    }
+}
@@ -0,0 +1,140 @@
+package study.querydsl.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+/**
+ * 테스트용 team/member 데이터를 만든다.
+ *
+ * skew 가 0 이면 순차 분포(i 번째 member 는 team i % teams, age i % 100, username member{i}),
+ * 0 보다 크면 값이 작은 쪽에 몰리는 거듭제곱 분포를 쓴다.
+ * chunk 를 순서대로 한 스레드에서 넣으므로 빈 DB 에서 같은 seed 면 id 까지 항상 같은 데이터가 만들어진다.
+ * 진행 로그는 chunk 마다가 아니라 {@link #PROGRESS_LOG_INTERVAL_NANOS} 간격으로 남긴다.
+ */
+@Slf4j
+@Component
+public class MemberDataGenerator {
+
+    private static final int MAX_AGE = 100;
+    private static final long PROGRESS_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberJpaRepository memberJpaRepository;
+
+    private final int teamCount;
+    private final long memberCount;
+    private final long seed;
+    private final int chunkSize;
+    private final double teamSkew;
+    private final double ageSkew;
+    private final double usernameSkew;
+
+    public MemberDataGenerator(EntityManager em,
+                               TransactionTemplate transactionTemplate,
+                               MemberJpaRepository memberJpaRepository,
+                               @Value("${init.teams:2}") int teamCount,
+                               @Value("${init.members:100}") long memberCount,
+                               @Value("${init.seed:42}") long seed,
+                               @Value("${init.chunk-size:1000}") int chunkSize,
+                               @Value("${init.skew.team:0}") double teamSkew,
+                               @Value("${init.skew.age:0}") double ageSkew,
+                               @Value("${init.skew.username:0}") double usernameSkew) {
+        if (teamCount < 1) {
+            throw new IllegalArgumentException("init.teams must be at least 1: " + teamCount);
+        }
+        if (memberCount < 0) {
+            throw new IllegalArgumentException("init.members must not be negative: " + memberCount);
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("init.chunk-size must be at least 1: " + chunkSize);
+        }
+        this.em = em;
+        this.transactionTemplate = transactionTemplate;
+        this.memberJpaRepository = memberJpaRepository;
+        this.teamCount = teamCount;
+        this.memberCount = memberCount;
+        this.seed = seed;
+        this.chunkSize = chunkSize;
+        this.teamSkew = teamSkew;
+        this.ageSkew = ageSkew;
+        this.usernameSkew = usernameSkew;
+    }
+
+    public void generate() {
+        long start = System.nanoTime();
+        List<Long> teamIds = createTeams();
+
+        long chunks = (memberCount + chunkSize - 1) / chunkSize;
+        long done = 0;
+        long lastProgressLog = start;
+        for (long chunk = 0; chunk < chunks; chunk++) {
+            done += insertChunk(teamIds, chunk);
+            long now = System.nanoTime();
+            if (now - lastProgressLog >= PROGRESS_LOG_INTERVAL_NANOS) {
+                lastProgressLog = now;
+                long elapsedMillis = Math.max(1, (now - start) / 1_000_000);
+                log.info("init members {}/{} ({}%, {} rows/s)",
+                        done, memberCount, done * 100 / memberCount, done * 1000 / elapsedMillis);
+            }
+        }
+        log.info("init done: {} teams, {} members in {} ms",
+                teamCount, memberCount, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private List<Long> createTeams() {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>(teamCount);
+            for (int i = 0; i < teamCount; i++) {
+                Team team = new Team(teamName(i));
+                em.persist(team);
+                ids.add(team.getId());
+            }
+            return ids;
+        });
+    }
+
+    private int insertChunk(List<Long> teamIds, long chunkIndex) {
+        long from = chunkIndex * chunkSize;
+        long to = Math.min(memberCount, from + chunkSize);
+        SplittableRandom random = new SplittableRandom(seed + chunkIndex);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Member> members = new ArrayList<>((int) (to - from));
+            for (long i = from; i < to; i++) {
+                int teamIndex = teamSkew > 0 ? (int) skewed(random, teamCount, teamSkew) : (int) (i % teamCount);
+                int age = ageSkew > 0 ? (int) skewed(random, MAX_AGE, ageSkew) : (int) (i % MAX_AGE);
+                long nameIndex = usernameSkew > 0 ? skewed(random, memberCount, usernameSkew) : i;
+
+                Member member = new Member("member" + nameIndex, age);
+                // changeTeam() 은 team 프록시를 초기화하므로 참조만 연결한다
+                member.setTeam(em.getReference(Team.class, teamIds.get(teamIndex)));
+                members.add(member);
+            }
+            memberJpaRepository.saveAll(members);
+        });
+        return (int) (to - from);
+    }
+
+    /**
+     * [0, bound) 범위에서 작은 값일수록 자주 나오는 값. skew 가 클수록 더 치우친다.
+     */
+    private static long skewed(SplittableRandom random, long bound, double skew) {
+        long value = (long) (bound * Math.pow(random.nextDouble(), 1 + skew));
+        return Math.min(value, bound - 1);
+    }
+
+    private static String teamName(int index) {
+        return index < 26 ? "team" + (char) ('A' + index) : "team" + index;
+    }
+}
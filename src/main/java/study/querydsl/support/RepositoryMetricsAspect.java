@@ -0,0 +1,100 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.Collection;
+import java.util.Optional;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberCursorPage;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.SearchShape;
+
+/**
+ * repository 의 public 메서드마다 실행 시간, 반환 행 수, 예외 수를 기록한다.
+ * MemberSearchCondition 을 받는 메서드는 어떤 조건이 들어왔는지(shape)로 태그를 단다.
+ * 조회가 아닌 MemberChangeHandler 콜백과 @Scheduled/@EventListener 메서드(재집계 등)는 재지 않는다.
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    private final MeterRegistry registry;
+
+    public RepositoryMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("@within(org.springframework.stereotype.Repository)"
+            + " && execution(public * study.querydsl.repository..*(..))"
+            + " && !execution(* study.querydsl.entity.MemberChangeHandler.*(..))"
+            + " && !@annotation(org.springframework.scheduling.annotation.Scheduled)"
+            + " && !@annotation(org.springframework.context.event.EventListener)")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        Tags tags = Tags.of(
+                "repository", joinPoint.getSignature().getDeclaringType().getSimpleName(),
+                "method", joinPoint.getSignature().getName(),
+                "shape", shape(joinPoint.getArgs()));
+
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "success";
+        try {
+            Object result = joinPoint.proceed();
+            long rows = rows(result);
+            if (rows >= 0) {
+                DistributionSummary.builder("repository.query.rows")
+                        .tags(tags)
+                        .publishPercentiles(0.5, 0.99)
+                        .register(registry)
+                        .record(rows);
+            }
+            return result;
+        } catch (Throwable e) {
+            outcome = "error";
+            Counter.builder("repository.query.errors")
+                    .tags(tags)
+                    .tag("exception", e.getClass().getSimpleName())
+                    .register(registry)
+                    .increment();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("repository.query")
+                    .tags(tags)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.99)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    private static String shape(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition) {
+                return SearchShape.describe(SearchShape.of((MemberSearchCondition) arg));
+            }
+        }
+        return "n/a";
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof MemberCursorPage) {
+            return ((MemberCursorPage) result).getContent().size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,63 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.MemberSearchCoalescer;
+import study.querydsl.repository.MemberSearchQueryCache;
+import study.querydsl.repository.MemberSearchResultCache;
+
+/**
+ * 검색 쿼리 캐시와 결과 캐시의 카운터를 Micrometer 로 노출한다.
+ */
+@Component
+public class SearchCacheMetrics implements MeterBinder {
+
+    private final MemberSearchQueryCache queryCache;
+    private final MemberSearchResultCache resultCache;
+    private final MemberSearchCoalescer coalescer;
+
+    public SearchCacheMetrics(MemberSearchQueryCache queryCache, MemberSearchResultCache resultCache,
+                              MemberSearchCoalescer coalescer) {
+        this.queryCache = queryCache;
+        this.resultCache = resultCache;
+        this.coalescer = coalescer;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("member.search.query.cache", queryCache, MemberSearchQueryCache::getHitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("member.search.query.cache", queryCache, MemberSearchQueryCache::getMissCount)
+                .tag("result", "miss")
+                .register(registry);
+
+        FunctionCounter.builder("member.search.result.cache", resultCache, MemberSearchResultCache::getHitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("member.search.result.cache", resultCache, MemberSearchResultCache::getMissCount)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("member.search.result.cache.evictions", resultCache, MemberSearchResultCache::getEvictionCount)
+                .register(registry);
+        FunctionCounter.builder("member.search.result.cache.invalidations", resultCache, MemberSearchResultCache::getInvalidationCount)
+                .register(registry);
+        Gauge.builder("member.search.result.cache.size", resultCache, MemberSearchResultCache::getSize)
+                .register(registry);
+        Gauge.builder("member.search.result.cache.bytes", resultCache, MemberSearchResultCache::getBytes)
+                .baseUnit("bytes")
+                .register(registry);
+
+        FunctionCounter.builder("member.search.coalesce", coalescer, MemberSearchCoalescer::getExecutionCount)
+                .tag("result", "executed")
+                .register(registry);
+        FunctionCounter.builder("member.search.coalesce", coalescer, MemberSearchCoalescer::getSharedCount)
+                .tag("result", "shared")
+                .register(registry);
+        Gauge.builder("member.search.coalesce.in.flight", coalescer, MemberSearchCoalescer::getInFlightCount)
+                .register(registry);
+    }
+}
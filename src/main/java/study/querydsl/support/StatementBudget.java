@@ -0,0 +1,214 @@
+package study.querydsl.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * HTTP 요청 / 트랜잭션 단위로 JDBC statement 수와 DB 시간을 모은다.
+ *
+ * 한 범위 안에서 max-statements 를 넘거나, 같은 모양의 select 가 max-repeats 번을 넘게 반복되면
+ * (지연 로딩 N+1 같은 경우) 위반으로 보고 로그와 메트릭을 남긴다. action=FAIL 이면 예외를 던진다.
+ */
+@Slf4j
+@Component
+public class StatementBudget extends SimpleJdbcEventListener {
+
+    public enum Action {
+        LOG, FAIL
+    }
+
+    private static final ThreadLocal<Deque<Scope>> SCOPES = ThreadLocal.withInitial(ArrayDeque::new);
+    private static final Object TRANSACTION_SCOPE_KEY = StatementBudget.class.getName() + ".TRANSACTION_SCOPE";
+    private static final int SQL_LOG_LENGTH = 200;
+
+    private final ObjectProvider<MeterRegistry> registry;
+    private final boolean enabled;
+    private final int maxStatements;
+    private final int maxRepeats;
+    private final Action action;
+
+    // DataSource 를 감싸기 전에 만들어지는 빈이라 MeterRegistry 는 사용할 때 가져온다
+    public StatementBudget(ObjectProvider<MeterRegistry> registry,
+                           @Value("${statement-budget.enabled:true}") boolean enabled,
+                           @Value("${statement-budget.max-statements:50}") int maxStatements,
+                           @Value("${statement-budget.max-repeats:10}") int maxRepeats,
+                           @Value("${statement-budget.action:LOG}") Action action) {
+        this.registry = registry;
+        this.enabled = enabled;
+        this.maxStatements = maxStatements;
+        this.maxRepeats = maxRepeats;
+        this.action = action;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (!enabled) {
+            return;
+        }
+        openTransactionScopeIfNeeded();
+        String sql = statementInformation.getSql();
+        boolean select = isSelect(sql);
+        for (Scope scope : SCOPES.get()) {
+            scope.record(sql, select, timeElapsedNanos);
+        }
+    }
+
+    public Scope open(String type, String name) {
+        Scope scope = new Scope(type, name);
+        SCOPES.get().push(scope);
+        return scope;
+    }
+
+    /**
+     * 범위를 닫고 결과를 기록한다. mayFail 이 true 이고 action=FAIL 이면 위반 시 예외를 던진다.
+     */
+    public List<String> close(Scope scope, boolean mayFail) {
+        Deque<Scope> scopes = SCOPES.get();
+        scopes.remove(scope);
+        if (scopes.isEmpty()) {
+            SCOPES.remove();
+        }
+        return report(scope, mayFail);
+    }
+
+    private void openTransactionScopeIfNeeded() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(TRANSACTION_SCOPE_KEY)) {
+            return;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        Scope scope = open("transaction", name != null ? name : "unnamed");
+        TransactionSynchronizationManager.bindResource(TRANSACTION_SCOPE_KEY, scope);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                report(scope, true);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SCOPE_KEY);
+                close(scope, false);
+            }
+        });
+    }
+
+    private List<String> report(Scope scope, boolean mayFail) {
+        if (scope.reported) {
+            return scope.violations;
+        }
+        scope.reported = true;
+        scope.violations = violations(scope);
+
+        MeterRegistry meterRegistry = registry.getIfAvailable();
+        if (meterRegistry != null) {
+            DistributionSummary.builder("jdbc.statements")
+                    .tag("scope", scope.type)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry)
+                    .record(scope.count);
+            Timer.builder("jdbc.time")
+                    .tag("scope", scope.type)
+                    .register(meterRegistry)
+                    .record(scope.nanos, TimeUnit.NANOSECONDS);
+            if (!scope.violations.isEmpty()) {
+                Counter.builder("jdbc.statement.budget.violations")
+                        .tag("scope", scope.type)
+                        .register(meterRegistry)
+                        .increment(scope.violations.size());
+            }
+        }
+
+        if (!scope.violations.isEmpty()) {
+            log.warn("statement budget exceeded in {} [{}]: {} statements, {} ms, {}",
+                    scope.type, scope.name, scope.count, scope.nanos / 1_000_000, scope.violations);
+            if (mayFail && action == Action.FAIL) {
+                throw new StatementBudgetExceededException(scope.type + " " + scope.name, scope.violations);
+            }
+        }
+        return scope.violations;
+    }
+
+    private List<String> violations(Scope scope) {
+        List<String> violations = new ArrayList<>();
+        if (scope.count > maxStatements) {
+            violations.add(scope.count + " statements > max " + maxStatements);
+        }
+        for (Map.Entry<String, Integer> entry : scope.repeats.entrySet()) {
+            if (entry.getValue() > maxRepeats) {
+                violations.add("possible N+1, " + entry.getValue() + "x: " + abbreviate(entry.getKey()));
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Hibernate 가 붙이는 앞쪽 주석(use_sql_comments)을 건너뛰고 select 인지 본다.
+     */
+    private static boolean isSelect(String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.startsWith("/*")) {
+            int end = trimmed.indexOf("*/");
+            if (end < 0) {
+                return false;
+            }
+            trimmed = trimmed.substring(end + 2).trim();
+        }
+        return trimmed.regionMatches(true, 0, "select", 0, 6);
+    }
+
+    private static String abbreviate(String sql) {
+        String oneLine = sql.replaceAll("\\s+", " ");
+        return oneLine.length() > SQL_LOG_LENGTH ? oneLine.substring(0, SQL_LOG_LENGTH) + "..." : oneLine;
+    }
+
+    public static class Scope {
+        private final String type;
+        private final String name;
+        private final Map<String, Integer> repeats = new HashMap<>();
+        private long count;
+        private long nanos;
+        private boolean reported;
+        private List<String> violations = Collections.emptyList();
+
+        Scope(String type, String name) {
+            this.type = type;
+            this.name = name;
+        }
+
+        void record(String sql, boolean select, long elapsedNanos) {
+            count++;
+            nanos += elapsedNanos;
+            if (select) {
+                repeats.merge(sql, 1, Integer::sum);
+            }
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
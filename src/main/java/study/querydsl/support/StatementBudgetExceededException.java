@@ -0,0 +1,17 @@
+package study.querydsl.support;
+
+import java.util.List;
+
+public class StatementBudgetExceededException extends IllegalStateException {
+
+    private final List<String> violations;
+
+    public StatementBudgetExceededException(String scope, List<String> violations) {
+        super("Statement budget exceeded in " + scope + ": " + violations);
+        this.violations = violations;
+    }
+
+    public List<String> getViolations() {
+        return violations;
+    }
+}
@@ -0,0 +1,36 @@
+package study.querydsl.support;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * 요청 하나를 StatementBudget 범위로 감싼다.
+ */
+@Component
+public class StatementBudgetFilter extends OncePerRequestFilter {
+
+    private final StatementBudget statementBudget;
+
+    public StatementBudgetFilter(StatementBudget statementBudget) {
+        this.statementBudget = statementBudget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        StatementBudget.Scope scope = statementBudget.open("request",
+                request.getMethod() + " " + request.getRequestURI());
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            statementBudget.close(scope, completed);
+        }
+    }
+}
@@ -19,6 +19,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.DtoProjections;
 import study.querydsl.dto.MemberDto;
 import study.querydsl.dto.QMemberDto;
 import study.querydsl.dto.UserDto;
@@ -668,6 +669,36 @@ public class QuerydslBasicTest {
     }
 
 
+    @Test
+    public void findDtoByDtoProjections() {
+        QMember member = QMember.member;
+
+        List<MemberDto> result = queryFactory
+                .select(DtoProjections.memberDto(member.username, member.age))
+                .from(member)
+                .fetch();
+
+        assertThat(result).extracting("username")
+                .containsExactly("member1", "member2", "member3", "member4");
+        assertThat(result).extracting("age").containsExactly(10, 20, 30, 40);
+    }
+
+    @Test
+    public void findUserDtoByDtoProjectionsBean() {
+        QMember member = QMember.member;
+
+        List<UserDto> result = queryFactory
+                .select(DtoProjections.bean(UserDto.class,
+                        member.username.as("name"),
+                        member.age))
+                .from(member)
+                .fetch();
+
+        assertThat(result).extracting("name")
+                .containsExactly("member1", "member2", "member3", "member4");
+        assertThat(result).extracting("age").containsExactly(10, 20, 30, 40);
+    }
+
     @Test
     public void dynamicQuery_BooleanBuilder() {
         String usernameParam = "member1";
@@ -0,0 +1,62 @@
+package study.querydsl.controller;
+
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.MemberCursorPage;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class MemberControllerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberController controller;
+
+    @Test
+    void cursorPageRejectsNonPositiveSize() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        assertThatThrownBy(() -> controller.searchMemberV2(condition, null, null, 0, "id"))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting("status").isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThatThrownBy(() -> controller.searchMemberV2(condition, null, null, -1, "age"))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting("status").isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    @Transactional
+    void cursorPageSizeIsClamped() {
+        Team team = new Team("cursorTeam");
+        em.persist(team);
+        for (int i = 0; i <= MemberController.MAX_CURSOR_PAGE_SIZE; i++) {
+            em.persist(new Member("cursor" + i, i % 50, team));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("cursorTeam");
+        MemberCursorPage page = controller.searchMemberV2(condition, null, null, 10_000, "id");
+
+        assertThat(page.getContent()).hasSize(MemberController.MAX_CURSOR_PAGE_SIZE);
+        assertThat(page.isHasNext()).isTrue();
+    }
+
+    @Test
+    void ageDistributionRejectsNonPositiveBucketWidth() {
+        assertThatThrownBy(() -> controller.ageDistribution(null, 0))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting("status").isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(controller.ageDistribution(null, 10)).isNotEmpty();
+    }
+}
@@ -0,0 +1,67 @@
+package study.querydsl.entity;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.repository.MemberJpaRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 트랜잭션 종류에 따라 결과가 다르므로 @Transactional 없이 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberEntityListenerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @BeforeEach
+    void before() {
+        transactionTemplate.executeWithoutResult(status -> em.persist(new Member("listener1", 10)));
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status ->
+                em.createQuery("delete from Member m where m.username like 'listener%'").executeUpdate());
+    }
+
+    @Test
+    void readOnlyLoadKeepsNoSnapshot() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        List<Member> members = readOnly.execute(status -> memberJpaRepository.findByUsername("listener1"));
+
+        assertThat(members).hasSize(1);
+        assertThat(members.get(0).getLoadedSnapshot()).isNull();
+    }
+
+    @Test
+    void readWriteLoadKeepsSnapshot() {
+        Member member = transactionTemplate.execute(status -> {
+            Member found = memberJpaRepository.findByUsername("listener1").get(0);
+            assertThat(found.getLoadedSnapshot()).isEqualTo(MemberSnapshot.of(found));
+            found.setAge(20);
+            return found;
+        });
+
+        assertThat(member.getLoadedSnapshot().getAge()).isEqualTo(20);
+    }
+}
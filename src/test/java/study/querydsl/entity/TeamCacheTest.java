@@ -0,0 +1,87 @@
+package study.querydsl.entity;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 2차 캐시는 커밋된 데이터만 공유하므로 @Transactional 대신 TransactionTemplate 으로 커밋한다.
+ */
+@SpringBootTest
+class TeamCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @PersistenceUnit
+    EntityManagerFactory emf;
+
+    Long teamId;
+    Long memberId;
+
+    @BeforeEach
+    void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("cachedTeam");
+            em.persist(team);
+            Member member = new Member("cachedMember", 10, team);
+            em.persist(member);
+            teamId = team.getId();
+            memberId = member.getId();
+        });
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.remove(em.find(Member.class, memberId));
+            em.remove(em.find(Team.class, teamId));
+        });
+    }
+
+    @Test
+    void warmTeamReadIssuesNoStatement() {
+        Statistics statistics = statistics();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            statistics.clear();
+            Team team = em.find(Team.class, teamId);
+
+            assertThat(team.getName()).isEqualTo("cachedTeam");
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+            assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void lazyTeamIsInitializedFromCache() {
+        Statistics statistics = statistics();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            statistics.clear();
+            Member member = em.find(Member.class, memberId);
+            long afterMemberLoad = statistics.getPrepareStatementCount();
+
+            assertThat(member.getTeam().getName()).isEqualTo("cachedTeam");
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(afterMemberLoad);
+            assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        });
+    }
+
+    private Statistics statistics() {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+}
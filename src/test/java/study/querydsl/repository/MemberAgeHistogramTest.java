@@ -0,0 +1,122 @@
+package study.querydsl.repository;
+
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberChange;
+import study.querydsl.entity.MemberSnapshot;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 히스토그램은 커밋 후에 갱신되므로 @Transactional 없이 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberAgeHistogramTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberAgeHistogram histogram;
+
+    Long teamAId;
+    Long teamBId;
+    Long member1Id;
+
+    @BeforeEach
+    void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("histTeamA");
+            Team teamB = new Team("histTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member("hist1", 10, teamA);
+            em.persist(member1);
+            em.persist(new Member("hist2", 20, teamA));
+            em.persist(new Member("hist3", 30, teamB));
+            em.persist(new Member("hist4", 40, teamB));
+
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+            member1Id = member1.getId();
+        });
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'hist%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name like 'histTeam%'").executeUpdate();
+        });
+        histogram.rebuild();
+    }
+
+    @Test
+    void countByAge() {
+        assertThat(histogram.countByAge(teamAId, null, null)).isEqualTo(2);
+        assertThat(histogram.countByAge(teamAId, 15, null)).isEqualTo(1);
+        assertThat(histogram.countByAge(teamBId, 30, 39)).isEqualTo(1);
+        assertThat(histogram.countByAge(teamBId, 50, 40)).isEqualTo(0);
+        assertThat(histogram.countByAge(-1L, null, null)).isEqualTo(0);
+    }
+
+    @Test
+    void committedChangesAreApplied() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member1 = em.find(Member.class, member1Id);
+            member1.setAge(35);
+            member1.changeTeam(em.find(Team.class, teamBId));
+        });
+        assertThat(histogram.countByAge(teamAId, null, null)).isEqualTo(1);
+        assertThat(histogram.countByAge(teamBId, 31, 39)).isEqualTo(1);
+
+        transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Member.class, member1Id)));
+        assertThat(histogram.countByAge(teamBId, null, null)).isEqualTo(2);
+    }
+
+    @Test
+    void distribution() {
+        long[] buckets = histogram.distribution(teamBId, 10);
+        assertThat(buckets).hasSize(histogram.getMaxAge() / 10 + 1);
+        assertThat(buckets[3]).isEqualTo(1);
+        assertThat(buckets[4]).isEqualTo(1);
+        assertThat(buckets[1]).isEqualTo(0);
+    }
+
+    @Test
+    void rebuildMatchesDatabase() {
+        transactionTemplate.executeWithoutResult(status -> em
+                .createQuery("update Member m set m.age = 25 where m.team.id = :teamId")
+                .setParameter("teamId", teamAId)
+                .executeUpdate());
+        //벌크 update 는 리스너를 거치지 않는다
+        assertThat(histogram.countByAge(teamAId, 25, 25)).isEqualTo(0);
+
+        histogram.rebuild();
+        assertThat(histogram.countByAge(teamAId, 25, 25)).isEqualTo(2);
+        assertThat(histogram.countByAge(teamAId, 10, 20)).isEqualTo(0);
+    }
+
+    @Test
+    void outOfRangeAgesAreClamped() {
+        MemberAgeHistogram local = new MemberAgeHistogram(null, 100);
+        local.onMemberChange(new MemberChange(null, new MemberSnapshot(1L, "old", 130, 7L)));
+        local.onMemberChange(new MemberChange(null, new MemberSnapshot(2L, "young", 1, 7L)));
+
+        assertThat(local.countByAge(7L, 100, null)).isEqualTo(1);
+        assertThat(local.countByAge(null, 0, 1)).isEqualTo(1);
+
+        local.onMemberChange(new MemberChange(new MemberSnapshot(1L, "old", 130, 7L), null));
+        assertThat(local.countByAge(7L, null, null)).isEqualTo(1);
+    }
+}
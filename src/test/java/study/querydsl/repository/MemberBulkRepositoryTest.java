@@ -0,0 +1,153 @@
+package study.querydsl.repository;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 구간마다 커밋하므로 @Transactional 없이 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest(properties = {"member.bulk.chunk-size=3", "member.bulk.threads=2"})
+class MemberBulkRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    @BeforeEach
+    void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("bulkTeamA");
+            Team teamB = new Team("bulkTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 1; i <= 10; i++) {
+                em.persist(new Member("bulkA" + i, i, teamA));
+            }
+            for (int i = 1; i <= 5; i++) {
+                em.persist(new Member("bulkB" + i, i, teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'bulk%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name like 'bulkTeam%'").executeUpdate();
+        });
+    }
+
+    @Test
+    void bulkUpdate() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("bulkTeamA");
+        condition.setAgeGoe(5);
+
+        long count = memberBulkRepository.bulkUpdate(condition, update -> update.set(member.age, member.age.add(100)));
+
+        assertThat(count).isEqualTo(6);
+        assertThat(ages("bulkA%")).containsExactly(1, 2, 3, 4, 105, 106, 107, 108, 109, 110);
+        assertThat(ages("bulkB%")).containsExactly(1, 2, 3, 4, 5);
+    }
+
+    /**
+     * open-in-view 처럼 트랜잭션 없이 스레드에 묶인 영속성 컨텍스트에서 조회한 Member 는 벌크 후 준영속이 된다.
+     */
+    @Test
+    void parallelBulkUpdateClearsCallerPersistenceContext() {
+        EntityManager callerEm = emf.createEntityManager();
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(callerEm));
+        try {
+            Member loaded = em.createQuery("select m from Member m where m.username = 'bulkA5'", Member.class)
+                    .getSingleResult();
+            assertThat(callerEm.contains(loaded)).isTrue();
+
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("bulkTeamA");
+            memberBulkRepository.bulkUpdate(condition, update -> update.set(member.age, member.age.add(100)));
+
+            assertThat(callerEm.contains(loaded)).isFalse();
+            Member reloaded = em.createQuery("select m from Member m where m.username = 'bulkA5'", Member.class)
+                    .getSingleResult();
+            assertThat(reloaded.getAge()).isEqualTo(105);
+        } finally {
+            TransactionSynchronizationManager.unbindResource(emf);
+            callerEm.close();
+        }
+    }
+
+    @Test
+    void bulkUpdateRejectsUsername() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("bulkTeamB");
+
+        assertThatThrownBy(() -> memberBulkRepository.bulkUpdate(condition,
+                update -> update.set(member.age, 1).set(member.username, "renamed")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> memberBulkRepository.bulkUpdate(condition,
+                update -> update.setNull(member.usernameLower)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(usernames("bulkB%")).containsExactly("bulkB1", "bulkB2", "bulkB3", "bulkB4", "bulkB5");
+    }
+
+    @Test
+    void bulkDelete() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("bulkTeamB");
+
+        assertThat(memberBulkRepository.bulkDelete(condition)).isEqualTo(5);
+        assertThat(ages("bulkB%")).isEmpty();
+        assertThat(ages("bulkA%")).hasSize(10);
+
+        assertThat(memberBulkRepository.bulkDelete(condition)).isEqualTo(0);
+    }
+
+    @Test
+    void bulkInsideTransactionIsRejected() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("bulkTeamB");
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(
+                status -> memberBulkRepository.bulkDelete(condition)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(ages("bulkB%")).hasSize(5);
+    }
+
+    private List<String> usernames(String usernamePattern) {
+        return transactionTemplate.execute(status -> em
+                .createQuery("select m.username from Member m where m.username like :pattern order by m.username", String.class)
+                .setParameter("pattern", usernamePattern)
+                .getResultList());
+    }
+
+    private List<Integer> ages(String usernamePattern) {
+        return transactionTemplate.execute(status -> em
+                .createQuery("select m.age from Member m where m.username like :pattern order by m.age", Integer.class)
+                .setParameter("pattern", usernamePattern)
+                .getResultList());
+    }
+}
@@ -0,0 +1,165 @@
+package study.querydsl.repository;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 커밋된 변경만 반영되므로 @Transactional 없이 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest(properties = "member.column-store.enabled=true")
+class MemberColumnStoreTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberColumnStore memberColumnStore;
+
+    Long teamBId;
+    Long member1Id;
+    Long member2Id;
+
+    @BeforeEach
+    void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("colTeamA");
+            Team teamB = new Team("colTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member("col1", 10, teamA);
+            Member member2 = new Member("col2", 20, teamA);
+            em.persist(member1);
+            em.persist(member2);
+            em.persist(new Member("col3", 30, teamB));
+            em.persist(new Member("col4", 40, teamB));
+            em.persist(new Member("col5", 45));
+
+            teamBId = teamB.getId();
+            member1Id = member1.getId();
+            member2Id = member2.getId();
+        });
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'col%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name like 'colTeam%'").executeUpdate();
+        });
+        memberColumnStore.reload();
+    }
+
+    @Test
+    void searchMatchesJpa() {
+        assertSameAsJpa(condition(null, "colTeamA", null, null), "col1", "col2");
+        assertSameAsJpa(condition(null, "colTeamB", 35, null), "col4");
+        assertSameAsJpa(condition(null, "colTeamB", 31, 39));
+        assertSameAsJpa(condition("col3", null, null, null), "col3");
+        assertSameAsJpa(condition("col3", "colTeamA", null, null));
+        assertSameAsJpa(condition("col5", null, 40, 50), "col5");
+        assertSameAsJpa(condition(null, "noSuchTeam", null, null));
+
+        List<MemberTeamDto> noTeam = memberJpaRepository.search(condition("col5", null, null, null), SearchMode.MEMORY);
+        assertThat(noTeam).extracting("teamId").containsOnlyNulls();
+    }
+
+    @Test
+    void usernameMatchSameInEveryMode() {
+        assertSameInEveryMode(usernameCondition("COL3", UsernameMatch.IGNORE_CASE, null), "col3");
+        assertSameInEveryMode(usernameCondition("Col", UsernameMatch.PREFIX, "colTeamA"), "col1", "col2");
+        assertSameInEveryMode(usernameCondition("OL4", UsernameMatch.CONTAINS, null), "col4");
+        assertSameInEveryMode(usernameCondition("l2", UsernameMatch.CONTAINS, "colTeamA"), "col2");
+        assertSameInEveryMode(usernameCondition("COL3", UsernameMatch.EXACT, null));
+    }
+
+    @Test
+    void committedChangesAreApplied() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member1 = em.find(Member.class, member1Id);
+            member1.setUsername("col1renamed");
+            member1.setAge(33);
+            member1.changeTeam(em.find(Team.class, teamBId));
+        });
+        transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Member.class, member2Id)));
+
+        assertSameAsJpa(condition(null, "colTeamA", null, null));
+        assertSameAsJpa(condition(null, "colTeamB", 30, 39), "col1renamed", "col3");
+        assertSameAsJpa(condition("col1", null, null, null));
+        assertSameAsJpa(condition("col1renamed", null, null, null), "col1renamed");
+        assertSameAsJpa(usernameCondition("RENAMED", UsernameMatch.CONTAINS, null), "col1renamed");
+    }
+
+    @Test
+    void newTeamIsResolvedByName() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamC = new Team("colTeamC");
+            em.persist(teamC);
+            em.persist(new Member("col6", 60, teamC));
+        });
+        assertSameAsJpa(condition(null, "colTeamC", null, null), "col6");
+    }
+
+    @Test
+    void teamRenameIsApplied() {
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamBId).setName("colTeamRenamed"));
+
+        assertSameAsJpa(condition(null, "colTeamB", null, null));
+        assertSameAsJpa(condition(null, "colTeamRenamed", null, null), "col3", "col4");
+        assertSameAsJpa(condition("col3", "colTeamRenamed", null, null), "col3");
+    }
+
+    @Test
+    void reloadKeepsSameResult() {
+        List<MemberTeamDto> before = memberJpaRepository.search(condition(null, "colTeamB", null, null), SearchMode.MEMORY);
+        memberColumnStore.reload();
+        List<MemberTeamDto> after = memberJpaRepository.search(condition(null, "colTeamB", null, null), SearchMode.MEMORY);
+        assertThat(after).containsExactlyInAnyOrderElementsOf(before);
+    }
+
+    private void assertSameAsJpa(MemberSearchCondition condition, String... usernames) {
+        List<MemberTeamDto> memory = memberJpaRepository.search(condition, SearchMode.MEMORY);
+        List<MemberTeamDto> jpa = memberJpaRepository.search(condition, SearchMode.JPA);
+        assertThat(memory).containsExactlyInAnyOrderElementsOf(jpa);
+        assertThat(memory).extracting("username").containsExactlyInAnyOrder((Object[]) usernames);
+    }
+
+    private void assertSameInEveryMode(MemberSearchCondition condition, String... usernames) {
+        assertSameAsJpa(condition, usernames);
+        List<MemberTeamDto> sql = memberJpaRepository.search(condition, SearchMode.SQL);
+        assertThat(sql).extracting("username").containsExactlyInAnyOrder((Object[]) usernames);
+    }
+
+    private static MemberSearchCondition usernameCondition(String username, UsernameMatch match, String teamName) {
+        MemberSearchCondition condition = condition(username, teamName, null, null);
+        condition.setUsernameMatch(match);
+        return condition;
+    }
+
+    private static MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
@@ -1,11 +1,19 @@
 package study.querydsl.repository;
 
+import java.util.ArrayList;
 import java.util.List;
 import javax.persistence.EntityManager;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberCursorPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
@@ -24,6 +32,18 @@ class MemberJpaRepositoryTest {
     @Autowired
     MemberJpaRepository memberJpaRepository;
 
+    @Autowired
+    MemberSearchQueryCache searchQueryCache;
+
+    @Autowired
+    MemberSearchResultCache searchResultCache;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
     @Test
     void basicTest() {
         Member member = new Member("member1", 10);
@@ -119,4 +139,262 @@ class MemberJpaRepositoryTest {
 
         assertThat(result).extracting("username").containsExactly("member4");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void searchByCursorTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, 50 - i * 10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        MemberCursorPage page1 = memberJpaRepository.searchByCursor(condition, null, 2);
+        assertThat(page1.getContent()).extracting("username").containsExactly("member0", "member1");
+        assertThat(page1.isHasNext()).isTrue();
+
+        MemberCursorPage page2 = memberJpaRepository.searchByCursor(condition, page1.getNextMemberId(), 2);
+        assertThat(page2.getContent()).extracting("username").containsExactly("member2", "member3");
+
+        MemberCursorPage page3 = memberJpaRepository.searchByCursor(condition, page2.getNextMemberId(), 2);
+        assertThat(page3.getContent()).extracting("username").containsExactly("member4");
+        assertThat(page3.isHasNext()).isFalse();
+        assertThat(page3.getNextMemberId()).isNull();
+    }
+
+    @Test
+    public void searchByAgeCursorTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("member1", 20, teamA));
+        em.persist(new Member("member2", 10, teamA));
+        em.persist(new Member("member3", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        MemberCursorPage page1 = memberJpaRepository.searchByAgeCursor(condition, null, null, 2);
+        assertThat(page1.getContent()).extracting("username").containsExactly("member2", "member1");
+
+        MemberCursorPage page2 = memberJpaRepository.searchByAgeCursor(condition,
+                page1.getNextAge(), page1.getNextMemberId(), 2);
+        assertThat(page2.getContent()).extracting("username").containsExactly("member3");
+        assertThat(page2.isHasNext()).isFalse();
+    }
+
+    @Test
+    public void searchPageTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        Page<MemberTeamDto> page = memberJpaRepository.searchPage(condition, PageRequest.of(0, 3));
+        assertThat(page.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(page.getTotalElements()).isEqualTo(4);
+
+        condition.setTeamName("teamB");
+        Page<MemberTeamDto> teamPage = memberJpaRepository.searchPage(condition, PageRequest.of(0, 3));
+        assertThat(teamPage.getContent()).extracting("username").containsExactly("member3", "member4");
+        assertThat(teamPage.getTotalElements()).isEqualTo(2);
+    }
+
+    /**
+     * 다른 커넥션에서 조회하므로 데이터를 커밋하고 끝나면 지운다.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void searchPageConcurrentTest() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("concurrentTeam");
+            em.persist(team);
+            for (int i = 1; i <= 5; i++) {
+                em.persist(new Member("concurrent" + i, i * 10, team));
+            }
+        });
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("concurrentTeam");
+            condition.setAgeGoe(20);
+
+            Page<MemberTeamDto> page = memberJpaRepository.searchPageConcurrent(condition, PageRequest.of(0, 2));
+            assertThat(page.getContent()).extracting("username").containsExactly("concurrent2", "concurrent3");
+            assertThat(page.getTotalElements()).isEqualTo(4);
+
+            Page<MemberTeamDto> lastPage = memberJpaRepository.searchPageConcurrent(condition, PageRequest.of(1, 3));
+            assertThat(lastPage.getContent()).extracting("username").containsExactly("concurrent5");
+            assertThat(lastPage.getTotalElements()).isEqualTo(4);
+            assertThat(lastPage.getContent()).isEqualTo(memberJpaRepository.searchPage(condition, PageRequest.of(1, 3)).getContent());
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> {
+                em.createQuery("delete from Member m where m.username like 'concurrent%'").executeUpdate();
+                em.createQuery("delete from Team t where t.name = 'concurrentTeam'").executeUpdate();
+            });
+        }
+    }
+
+    @Test
+    public void searchMemoryFallsBackToJpaWhenColumnStoreIsDisabled() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        assertThat(memberJpaRepository.search(condition, SearchMode.MEMORY))
+                .usingFieldByFieldElementComparator()
+                .containsExactlyElementsOf(memberJpaRepository.search(condition, SearchMode.JPA));
+    }
+
+    @Test
+    public void searchStreamTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, null));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        memberJpaRepository.searchStream(condition, result::add);
+
+        assertThat(result).extracting("username").containsExactly("member2", "member3");
+        assertThat(result).extracting("teamName").containsExactly("teamA", null);
+    }
+
+    @Test
+    public void searchQueryCacheTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(15);
+
+        long misses = searchQueryCache.getMissCount();
+        long hits = searchQueryCache.getHitCount();
+
+        List<MemberTeamDto> first = memberJpaRepository.search(condition);
+        condition.setAgeGoe(5);
+        List<MemberTeamDto> second = memberJpaRepository.search(condition);
+
+        assertThat(first).extracting("username").containsExactly("member2");
+        assertThat(second).usingFieldByFieldElementComparator()
+                .containsExactlyElementsOf(memberJpaRepository.searchUncached(condition));
+        assertThat(searchQueryCache.getMissCount() - misses).isLessThanOrEqualTo(1);
+        assertThat(searchQueryCache.getHitCount() - hits).isGreaterThanOrEqualTo(1);
+    }
+
+    /**
+     * 캐시는 커밋된 값만 담으므로 트랜잭션 밖에서 커밋하고 끝나면 지운다.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void searchResultCacheTest() {
+        Long[] ids = transactionTemplate.execute(status -> {
+            Team team = new Team("cacheTeam");
+            em.persist(team);
+            Member member1 = new Member("cache1", 10, team);
+            memberJpaRepository.save(member1);
+            return new Long[]{team.getId(), member1.getId()};
+        });
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("cacheTeam");
+            condition.setUsername("");
+
+            long hits = searchResultCache.getHitCount();
+            List<MemberTeamDto> first = memberJpaRepository.searchCached(condition);
+            List<MemberTeamDto> second = memberJpaRepository.searchCached(condition);
+            assertThat(second).isSameAs(first);
+            assertThat(searchResultCache.getHitCount() - hits).isEqualTo(1);
+
+            transactionTemplate.executeWithoutResult(status ->
+                    memberJpaRepository.save(new Member("cache2", 20, em.find(Team.class, ids[0]))));
+            assertThat(memberJpaRepository.searchCached(condition))
+                    .extracting("username").containsExactly("cache1", "cache2");
+
+            // dirty checking 으로 바뀐 값도 커밋 후 반영된다
+            transactionTemplate.executeWithoutResult(status -> em.find(Member.class, ids[1]).setAge(11));
+            assertThat(memberJpaRepository.searchCached(condition)).extracting("age").containsExactly(11, 20);
+
+            // 롤백된 변경은 트랜잭션 안에서 읽었어도 캐시에 남지 않는다
+            transactionTemplate.executeWithoutResult(status -> {
+                memberJpaRepository.save(new Member("cache3", 30, em.find(Team.class, ids[0])));
+                em.flush();
+                assertThat(memberJpaRepository.searchCached(condition)).hasSize(3);
+                status.setRollbackOnly();
+            });
+            assertThat(memberJpaRepository.searchCached(condition)).hasSize(2);
+
+            // team 이름이 바뀌면 이전 이름으로 캐시된 결과가 지워진다
+            transactionTemplate.executeWithoutResult(status -> em.find(Team.class, ids[0]).setName("cacheTeam2"));
+            assertThat(memberJpaRepository.searchCached(condition)).isEmpty();
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> {
+                em.createQuery("delete from Member m where m.username like 'cache%'").executeUpdate();
+                em.createQuery("delete from Team t where t.name like 'cacheTeam%'").executeUpdate();
+            });
+        }
+    }
+
+    @Test
+    public void saveAllTest() {
+        Team team = new Team("batchTeam");
+        em.persist(team);
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            members.add(new Member("batch" + i, i % 50, team));
+        }
+        memberJpaRepository.saveAll(members);
+
+        Long count = em.createQuery("select count(m) from Member m where m.team.name = :teamName", Long.class)
+                .setParameter("teamName", "batchTeam")
+                .getSingleResult();
+        assertThat(count).isEqualTo(250);
+        assertThat(members).allMatch(member -> member.getId() != null);
+    }
+
+    /**
+     * 읽기 전용 트랜잭션을 새로 열어 확인하므로 데이터를 커밋하고 끝나면 지운다.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void readOnlyQueryTest() {
+        transactionTemplate.executeWithoutResult(status -> memberJpaRepository.save(new Member("readOnly", 10)));
+        try {
+            //읽기 전용 트랜잭션에서 조회한 엔티티는 dirty checking 대상이 아니다
+            TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+            readOnlyTransaction.setReadOnly(true);
+            Boolean readOnly = readOnlyTransaction.execute(status -> em.unwrap(Session.class)
+                    .isReadOnly(memberJpaRepository.findByUsername_Querydsl("readOnly").get(0)));
+            assertThat(readOnly).isTrue();
+
+            //읽기/쓰기 트랜잭션에 참여하면 힌트를 주지 않으므로 수정이 반영된다
+            transactionTemplate.executeWithoutResult(status ->
+                    memberJpaRepository.findByUsername_Querydsl("readOnly").get(0).setAge(20));
+            Integer age = transactionTemplate.execute(status ->
+                    memberJpaRepository.findByUsername("readOnly").get(0).getAge());
+            assertThat(age).isEqualTo(20);
+        } finally {
+            transactionTemplate.executeWithoutResult(status ->
+                    em.createQuery("delete from Member m where m.username = 'readOnly'").executeUpdate());
+        }
+    }
+}
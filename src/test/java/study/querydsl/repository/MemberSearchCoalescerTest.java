@@ -0,0 +1,112 @@
+package study.querydsl.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberSearchCoalescerTest {
+
+    static final int CALLERS = 8;
+
+    MemberSearchCoalescer coalescer = new MemberSearchCoalescer(true);
+    ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallsShareOneExecution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        List<Future<List<MemberTeamDto>>> results = new ArrayList<>();
+        results.add(executor.submit(() -> coalescer.execute(condition("teamA"), c -> {
+            loads.incrementAndGet();
+            started.countDown();
+            await(release);
+            return new ArrayList<>(List.of(new MemberTeamDto(1L, "member1", 10, 1L, c.getTeamName())));
+        })));
+        started.await(5, TimeUnit.SECONDS);
+
+        for (int i = 1; i < CALLERS; i++) {
+            // 빈 문자열 username 은 정규화되어 같은 키가 된다
+            MemberSearchCondition condition = condition("teamA");
+            condition.setUsername("");
+            results.add(executor.submit(() -> coalescer.execute(condition, c -> {
+                loads.incrementAndGet();
+                return List.of();
+            })));
+        }
+        while (coalescer.getSharedCount() < CALLERS - 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        List<MemberTeamDto> first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<List<MemberTeamDto>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(first);
+        }
+        assertThat(first).extracting("teamName").containsExactly("teamA");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(coalescer.getExecutionCount()).isEqualTo(1);
+        assertThat(coalescer.getInFlightCount()).isEqualTo(0);
+
+        // 끝난 조회는 남기지 않는다
+        coalescer.execute(condition("teamA"), c -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void failureIsPropagatedToWaitingCallers() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<List<MemberTeamDto>> leader = executor.submit(() -> coalescer.execute(condition("teamB"), c -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("boom");
+        }));
+        started.await(5, TimeUnit.SECONDS);
+        Future<List<MemberTeamDto>> follower = executor.submit(() -> coalescer.execute(condition("teamB"), c -> List.of()));
+        while (coalescer.getSharedCount() < 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(coalescer.getInFlightCount()).isEqualTo(0);
+    }
+
+    private static MemberSearchCondition condition(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return condition;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
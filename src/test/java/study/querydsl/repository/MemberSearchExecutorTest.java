@@ -0,0 +1,51 @@
+package study.querydsl.repository;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberSearchExecutorTest {
+
+    MemberSearchExecutor executor = new MemberSearchExecutor(4, Duration.ofSeconds(1), 4);
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    void workersAreBoundedByHalfThePool() {
+        assertThat(executor.getWorkers()).isEqualTo(2);
+        assertThat(new MemberSearchExecutor(4, Duration.ofSeconds(1), 1).getWorkers()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsWhenNoWorkerIsFree() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Optional<CompletableFuture<Integer>> first = executor.trySupply(() -> block(release, 1));
+        Optional<CompletableFuture<Integer>> second = executor.trySupply(() -> block(release, 2));
+        assertThat(first).isPresent();
+        assertThat(second).isPresent();
+
+        assertThat(executor.trySupply(() -> 3)).isEmpty();
+
+        release.countDown();
+        assertThat(first.get().get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(second.get().get(5, TimeUnit.SECONDS)).isEqualTo(2);
+    }
+
+    private static int block(CountDownLatch latch, int value) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+}
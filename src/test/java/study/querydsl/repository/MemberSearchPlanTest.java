@@ -0,0 +1,109 @@
+package study.querydsl.repository;
+
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.UsernameMatch;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.StatementCounter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.repository.SearchShape.AGE_GOE;
+import static study.querydsl.repository.SearchShape.AGE_LOE;
+import static study.querydsl.repository.SearchShape.TEAM_NAME;
+import static study.querydsl.repository.SearchShape.USERNAME;
+import static study.querydsl.repository.SearchShape.has;
+
+/**
+ * search() 가 만드는 SQL 을 H2 EXPLAIN 으로 확인해서 풀 스캔이 없는지 검사한다.
+ * 조건이 하나도 없는 shape(전체 조회)는 풀 스캔이 정상이므로 제외한다.
+ * username 비교 방식(UsernameMatch)마다 따로 확인한다.
+ */
+@SpringBootTest
+@Transactional
+@Import(StatementCounter.Config.class)
+class MemberSearchPlanTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    StatementCounter statementCounter;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 100; i++) {
+            em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+    }
+
+    @Test
+    void everySearchShapeUsesAnIndex() {
+        for (int shape = 1; shape < SearchShape.COUNT; shape++) {
+            if (!SearchShape.isValid(shape)) {
+                continue;
+            }
+            String sql;
+            try (StatementCounter.Scope statements = statementCounter.open()) {
+                memberJpaRepository.search(condition(shape));
+                sql = statements.getLastSqlWithValues();
+            }
+
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+
+            assertThat(plan)
+                    .as("shape %s\n%s", SearchShape.describe(shape), plan)
+                    .doesNotContainIgnoringCase("tableScan");
+        }
+    }
+
+    private MemberSearchCondition condition(int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if (has(shape, USERNAME)) {
+            UsernameMatch match = SearchShape.usernameMatch(shape);
+            condition.setUsername(username(match));
+            condition.setUsernameMatch(match);
+        }
+        if (has(shape, TEAM_NAME)) {
+            condition.setTeamName("teamA");
+        }
+        if (has(shape, AGE_GOE)) {
+            condition.setAgeGoe(10);
+        }
+        if (has(shape, AGE_LOE)) {
+            condition.setAgeLoe(40);
+        }
+        return condition;
+    }
+
+    private static String username(UsernameMatch match) {
+        switch (match) {
+            case IGNORE_CASE:
+                return "MEMBER10";
+            case PREFIX:
+                return "member1";
+            case CONTAINS:
+                return "ber1";
+            default:
+                return "member10";
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.repository;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSqlRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSqlRepository memberSqlRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Test
+    void searchTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 40));
+
+        //SQL 은 영속성 컨텍스트를 거치지 않으므로 먼저 반영한다
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(35);
+        condition.setAgeLoe(40);
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> result = memberSqlRepository.search(condition);
+
+        assertThat(result).extracting("username").containsExactly("member4");
+        assertThat(result).extracting("teamName").containsExactly("teamB");
+        assertThat(result).usingFieldByFieldElementComparator()
+                .containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(condition, SearchMode.JPA));
+    }
+
+    @Test
+    void searchWithoutTeamTest() {
+        em.persist(new Member("lonely", 99));
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("lonely");
+
+        List<MemberTeamDto> result = memberSqlRepository.search(condition);
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getTeamId()).isNull();
+        assertThat(result.get(0).getAge()).isEqualTo(99);
+    }
+}
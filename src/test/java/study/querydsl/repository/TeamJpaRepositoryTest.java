@@ -0,0 +1,112 @@
+package study.querydsl.repository;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.StatementCounter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "team.page.max-members=2")
+@Transactional
+@Import(StatementCounter.Config.class)
+class TeamJpaRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamJpaRepository teamJpaRepository;
+
+    @Autowired
+    StatementCounter statementCounter;
+
+    @Test
+    void findAllWithMembersUsesTwoQueries() {
+        for (int i = 0; i < 10; i++) {
+            Team team = new Team("team" + i);
+            teamJpaRepository.save(team);
+            em.persist(new Member("member" + i + "_1", 10, team));
+            em.persist(new Member("member" + i + "_2", 20, team));
+        }
+        em.flush();
+        em.clear();
+
+        try (StatementCounter.Scope statements = statementCounter.open()) {
+            List<Team> teams = teamJpaRepository.findAllWithMembers(PageRequest.of(0, 100));
+            long memberCount = teams.stream().mapToLong(team -> team.getMembers().size()).sum();
+
+            assertThat(memberCount).isGreaterThanOrEqualTo(20);
+            assertThat(statements.getCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void changeTeamDoesNotInitializeMembers() {
+        Team team = new Team("teamA");
+        teamJpaRepository.save(team);
+        em.flush();
+        em.clear();
+
+        Team findTeam = em.find(Team.class, team.getId());
+        em.persist(new Member("member1", 10, findTeam));
+
+        assertThat(em.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(findTeam, "members")).isFalse();
+    }
+
+    @Test
+    void findTeamsWithMembersPagesOnTeams() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Team teamC = new Team("teamC");
+        teamJpaRepository.save(teamA);
+        teamJpaRepository.save(teamB);
+        teamJpaRepository.save(teamC);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.flush();
+        em.clear();
+
+        Page<TeamMembersDto> page1 = teamJpaRepository.findTeamsWithMembers(PageRequest.of(0, 2));
+        assertThat(page1.getTotalElements()).isEqualTo(3);
+        assertThat(page1.getContent()).extracting("teamName").containsExactly("teamA", "teamB");
+        assertThat(page1.getContent().get(0).getMembers()).extracting("username")
+                .containsExactly("member1", "member2");
+        assertThat(page1.getContent().get(1).getMembers()).extracting("username")
+                .containsExactly("member3");
+
+        Page<TeamMembersDto> page2 = teamJpaRepository.findTeamsWithMembers(PageRequest.of(1, 2));
+        assertThat(page2.getContent()).extracting("teamName").containsExactly("teamC");
+        assertThat(page2.getContent().get(0).getMembers()).isEmpty();
+        assertThat(page1.getContent()).extracting("moreMembers").containsOnly(false);
+    }
+
+    @Test
+    void findTeamsWithMembersCapsMembersPerTeam() {
+        Team teamA = new Team("teamA");
+        teamJpaRepository.save(teamA);
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+        em.flush();
+        em.clear();
+
+        TeamMembersDto result = teamJpaRepository.findTeamsWithMembers(PageRequest.of(0, 10)).getContent().stream()
+                .filter(dto -> dto.getTeamId().equals(teamA.getId()))
+                .findFirst()
+                .orElseThrow();
+
+        assertThat(result.getMembers()).extracting("username").containsExactly("member1", "member2");
+        assertThat(result.isMoreMembers()).isTrue();
+    }
+}
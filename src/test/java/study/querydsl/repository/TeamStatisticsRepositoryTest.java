@@ -0,0 +1,133 @@
+package study.querydsl.repository;
+
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamStatisticsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 통계는 커밋 후에 갱신되므로 @Transactional 없이 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class TeamStatisticsRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    TeamStatisticsRepository teamStatisticsRepository;
+
+    Long teamAId;
+    Long teamBId;
+    Long member1Id;
+    Long member2Id;
+    Long member4Id;
+
+    @BeforeEach
+    void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("statTeamA");
+            Team teamB = new Team("statTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member("stat1", 10, teamA);
+            Member member2 = new Member("stat2", 20, teamA);
+            Member member4 = new Member("stat4", 40, teamB);
+            em.persist(member1);
+            em.persist(member2);
+            em.persist(new Member("stat3", 30, teamB));
+            em.persist(member4);
+
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+            member1Id = member1.getId();
+            member2Id = member2.getId();
+            member4Id = member4.getId();
+        });
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'stat%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name like 'statTeam%'").executeUpdate();
+        });
+        teamStatisticsRepository.reconcile();
+    }
+
+    @Test
+    void insertedMembersAreCounted() {
+        TeamStatisticsDto teamA = find("statTeamA").orElseThrow();
+        assertThat(teamA.getCount()).isEqualTo(2);
+        assertThat(teamA.getSum()).isEqualTo(30);
+        assertThat(teamA.getAvg()).isEqualTo(15);
+        assertThat(teamA.getMax()).isEqualTo(20);
+        assertThat(teamA.getMin()).isEqualTo(10);
+
+        TeamStatisticsDto teamB = find("statTeamB").orElseThrow();
+        assertThat(teamB.getAvg()).isEqualTo(35);
+    }
+
+    @Test
+    void updateChangeTeamAndRemoveAreApplied() {
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, member4Id).setAge(45));
+        TeamStatisticsDto teamB = find("statTeamB").orElseThrow();
+        assertThat(teamB.getSum()).isEqualTo(75);
+        assertThat(teamB.getMax()).isEqualTo(45);
+
+        //teamA 의 최소값을 가진 member 가 빠지므로 teamA 는 다시 집계된다
+        transactionTemplate.executeWithoutResult(status ->
+                em.find(Member.class, member1Id).changeTeam(em.find(Team.class, teamBId)));
+        TeamStatisticsDto teamA = find("statTeamA").orElseThrow();
+        assertThat(teamA.getCount()).isEqualTo(1);
+        assertThat(teamA.getMin()).isEqualTo(20);
+        assertThat(teamA.getMax()).isEqualTo(20);
+        teamB = find("statTeamB").orElseThrow();
+        assertThat(teamB.getCount()).isEqualTo(3);
+        assertThat(teamB.getMin()).isEqualTo(10);
+
+        transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Member.class, member2Id)));
+        assertThat(find("statTeamA")).isEmpty();
+    }
+
+    @Test
+    void rolledBackChangesAreIgnored() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.find(Member.class, member4Id).setAge(99);
+            em.flush();
+            status.setRollbackOnly();
+        });
+        assertThat(find("statTeamB").orElseThrow().getMax()).isEqualTo(40);
+    }
+
+    @Test
+    void reconcileRepairsBulkChanges() {
+        transactionTemplate.executeWithoutResult(status -> em
+                .createQuery("update Member m set m.age = m.age + 1 where m.team.id = :teamId")
+                .setParameter("teamId", teamAId)
+                .executeUpdate());
+        //벌크 update 는 리스너를 거치지 않는다
+        assertThat(find("statTeamA").orElseThrow().getSum()).isEqualTo(30);
+
+        teamStatisticsRepository.reconcile();
+        assertThat(find("statTeamA").orElseThrow().getSum()).isEqualTo(32);
+    }
+
+    private Optional<TeamStatisticsDto> find(String teamName) {
+        return teamStatisticsRepository.findAll().stream()
+                .filter(dto -> teamName.equals(dto.getTeamName()))
+                .findFirst();
+    }
+}
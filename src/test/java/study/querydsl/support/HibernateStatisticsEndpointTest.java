@@ -0,0 +1,49 @@
+package study.querydsl.support;
+
+import java.util.Map;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class HibernateStatisticsEndpointTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    HibernateStatisticsEndpoint endpoint;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void statisticsAndReset() {
+        endpoint.reset();
+
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.flush();
+        em.clear();
+        em.createQuery("select m from Member m", Member.class).getResultList();
+
+        Map<String, Object> result = endpoint.statistics();
+        Map<String, Object> entities = (Map<String, Object>) result.get("entities");
+        Map<String, Object> member = (Map<String, Object>) entities.get("Member");
+
+        assertThat(result.get("enabled")).isEqualTo(true);
+        assertThat(member.get("insertCount")).isEqualTo(1L);
+        assertThat(member.get("loadCount")).isEqualTo(1L);
+        assertThat(result.get("queries")).asList().isNotEmpty();
+
+        endpoint.reset();
+        Map<String, Object> afterReset = (Map<String, Object>) endpoint.statistics().get("session");
+        assertThat(afterReset.get("prepareStatementCount")).isEqualTo(0L);
+    }
+}
@@ -0,0 +1,68 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.TeamStatisticsRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsAspectTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    TeamStatisticsRepository teamStatisticsRepository;
+
+    @Test
+    void searchIsTimedByShape() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(15);
+        memberJpaRepository.search(condition);
+
+        Timer timer = registry.find("repository.query")
+                .tags("repository", "MemberJpaRepository", "method", "search", "shape", "teamName+ageGoe")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+
+        assertThat(registry.find("repository.query.rows")
+                .tags("method", "search", "shape", "teamName+ageGoe")
+                .summary()
+                .totalAmount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void callbacksAndScheduledJobsAreNotTimed() {
+        teamStatisticsRepository.reconcile();
+        teamStatisticsRepository.onBulkChange();
+        teamStatisticsRepository.findAll();
+
+        assertThat(registry.find("repository.query").tags("repository", "TeamStatisticsRepository", "method", "reconcile").timer()).isNull();
+        assertThat(registry.find("repository.query").tags("repository", "TeamStatisticsRepository", "method", "onBulkChange").timer()).isNull();
+        assertThat(registry.find("repository.query").tags("repository", "TeamStatisticsRepository", "method", "findAll").timer()).isNotNull();
+    }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.support;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class StatementBudgetTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    StatementBudget statementBudget;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @BeforeEach
+    void before() {
+        for (int i = 0; i < 12; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, i, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void lazyTeamLoadsAreReportedAsNPlusOne() {
+        StatementBudget.Scope scope = statementBudget.open("test", "lazyTeams");
+
+        List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+        for (Member member : members) {
+            member.getTeam().getName();
+        }
+
+        List<String> violations = statementBudget.close(scope, false);
+        assertThat(violations).anyMatch(violation -> violation.startsWith("possible N+1"));
+    }
+
+    @Test
+    void dtoSearchStaysWithinBudget() {
+        StatementBudget.Scope scope = statementBudget.open("test", "search");
+
+        memberJpaRepository.search(new MemberSearchCondition());
+
+        List<String> violations = statementBudget.close(scope, false);
+        assertThat(scope.getCount()).isEqualTo(1);
+        assertThat(violations).isEmpty();
+    }
+}
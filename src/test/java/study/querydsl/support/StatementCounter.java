@@ -0,0 +1,60 @@
+package study.querydsl.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import java.sql.SQLException;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * 테스트용. p6spy 로 {@link #open()} 한 범위 안에서 현재 스레드가 실행한 JDBC statement 수와
+ * 마지막 SQL(바인딩 값 포함)을 기록한다. 범위를 닫으면 기록도 지운다.
+ * 필요한 테스트에서만 {@code @Import(StatementCounter.Config.class)} 로 등록한다.
+ */
+public class StatementCounter extends SimpleJdbcEventListener {
+
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        Scope scope = SCOPE.get();
+        if (scope != null) {
+            scope.count++;
+            scope.lastSqlWithValues = statementInformation.getSqlWithValues();
+        }
+    }
+
+    public Scope open() {
+        Scope scope = new Scope();
+        SCOPE.set(scope);
+        return scope;
+    }
+
+    public static class Scope implements AutoCloseable {
+
+        private long count;
+        private String lastSqlWithValues;
+
+        public long getCount() {
+            return count;
+        }
+
+        public String getLastSqlWithValues() {
+            return lastSqlWithValues;
+        }
+
+        @Override
+        public void close() {
+            SCOPE.remove();
+        }
+    }
+
+    @TestConfiguration
+    public static class Config {
+
+        @Bean
+        public StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+    }
+}